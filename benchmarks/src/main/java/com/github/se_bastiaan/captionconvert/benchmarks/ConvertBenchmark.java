@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert.benchmarks;
+
+import com.github.se_bastiaan.captionconvert.Diagnostics;
+import com.github.se_bastiaan.captionconvert.TimedTextFileFormat;
+import com.github.se_bastiaan.captionconvert.TimedTextObject;
+import com.github.se_bastiaan.captionconvert.Transcoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken to convert a file from one format into another, from the source text to the written
+ * target text. Converting a format into itself is measured as well, as a baseline. transcode goes
+ * through {@link Transcoder}, which streams the common pairs instead of building a TimedTextObject.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param
+    public CorpusGenerator.Format from;
+
+    @Param
+    public CorpusGenerator.Format to;
+
+    @Param({"100", "2000", "50000"})
+    public int cues;
+
+    @Param({"PLAIN", "MARKUP"})
+    public CorpusGenerator.Shape shape;
+
+    private TimedTextFileFormat parser;
+    private TimedTextFileFormat writer;
+    private Transcoder transcoder;
+    private String input;
+    private StringBuilder out;
+
+    @Setup
+    public void setUp() {
+        parser = from.create();
+        writer = to.create();
+        transcoder = Transcoder.forFormats(parser, writer);
+        input = CorpusGenerator.generate(from, cues, shape);
+        out = new StringBuilder();
+    }
+
+    @Benchmark
+    public int convert() throws Exception {
+        TimedTextObject tto = parser.parseFile("benchmark." + from.extension, input);
+        out.setLength(0);
+        writer.write(tto, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int transcode() throws Exception {
+        out.setLength(0);
+        transcoder.transcode("benchmark." + from.extension, new StringReader(input), out, new Diagnostics(Diagnostics.Level.FIRST_N));
+        return out.length();
+    }
+
+}
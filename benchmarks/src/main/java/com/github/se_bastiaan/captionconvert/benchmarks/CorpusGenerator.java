@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert.benchmarks;
+
+import com.github.se_bastiaan.captionconvert.FormatASS;
+import com.github.se_bastiaan.captionconvert.FormatSRT;
+import com.github.se_bastiaan.captionconvert.FormatTTML;
+import com.github.se_bastiaan.captionconvert.FormatVTT;
+import com.github.se_bastiaan.captionconvert.TimeFormat;
+import com.github.se_bastiaan.captionconvert.TimedTextFileFormat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Generates synthetic subtitle files to benchmark against. The same seed always gives the same
+ * file, so numbers from different runs can be compared.
+ */
+public final class CorpusGenerator {
+
+    public enum Format {
+        SRT("srt"), VTT("vtt"), ASS("ass"), TTML("ttml");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * @return a new instance of the library format for this kind of file
+         */
+        public TimedTextFileFormat create() {
+            switch (this) {
+                case SRT:
+                    return new FormatSRT();
+                case VTT:
+                    return new FormatVTT();
+                case ASS:
+                    return new FormatASS();
+                default:
+                    return new FormatTTML();
+            }
+        }
+    }
+
+    public enum Shape {
+        //one or two lines of plain text per cue
+        PLAIN,
+        //every word wrapped in styling tags, which the writers have to strip
+        MARKUP,
+        //cues come in groups of three sharing their start time
+        DUPLICATE_STARTS,
+        //plain cues with \r\n line endings
+        CRLF
+    }
+
+    public static final long DEFAULT_SEED = 42;
+
+    private static final String[] WORDS = {
+            "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "subtitle", "caption",
+            "where", "are", "you", "going", "tonight", "I", "don't", "know", "maybe", "later"
+    };
+
+    private final Format format;
+    private final Shape shape;
+    private final Random random;
+    private final String newLine;
+
+    private CorpusGenerator(Format format, Shape shape, long seed) {
+        this.format = format;
+        this.shape = shape;
+        this.random = new Random(seed);
+        this.newLine = shape == Shape.CRLF ? "\r\n" : "\n";
+    }
+
+    /**
+     * @param format kind of file to generate
+     * @param cues   number of captions in the file
+     * @param shape  kind of content
+     * @return the whole file
+     */
+    public static String generate(Format format, int cues, Shape shape) {
+        return generate(format, cues, shape, DEFAULT_SEED);
+    }
+
+    public static String generate(Format format, int cues, Shape shape, long seed) {
+        return new CorpusGenerator(format, shape, seed).generate(cues);
+    }
+
+    private String generate(int cues) {
+        StringBuilder sb = new StringBuilder(cues * 80);
+        header(sb);
+        int start = 0;
+        for (int i = 0; i < cues; i++) {
+            //with duplicate starts only every third cue moves the clock forward
+            if (shape != Shape.DUPLICATE_STARTS || i % 3 == 0) {
+                start += 500 + random.nextInt(3000);
+            }
+            int end = start + 800 + random.nextInt(4000);
+            cue(sb, i + 1, start, end);
+        }
+        footer(sb);
+        return sb.toString();
+    }
+
+    private void header(StringBuilder sb) {
+        switch (format) {
+            case VTT:
+                sb.append("WEBVTT").append(newLine).append(newLine);
+                break;
+            case ASS:
+                sb.append("[Script Info]").append(newLine)
+                        .append("Title: benchmark").append(newLine)
+                        .append("Script Type: v4.00+").append(newLine)
+                        .append(newLine)
+                        .append("[V4+ Styles]").append(newLine)
+                        .append("Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, OutlineColour, BackColour, Bold, Italic, Underline, StrikeOut, ScaleX, ScaleY, Spacing, Angle, BorderStyle, Outline, Shadow, Alignment, MarginL, MarginR, MarginV, Encoding").append(newLine)
+                        .append("Style: Default,Arial,20,&H00FFFFFF,&H000000FF,&H00000000,&H00000000,0,0,0,0,100,100,0,0,1,2,2,2,10,10,10,1").append(newLine)
+                        .append("Style: Italic,Arial,20,&H0000FFFF,&H000000FF,&H00000000,&H00000000,0,-1,0,0,100,100,0,0,1,2,2,8,10,10,10,1").append(newLine)
+                        .append(newLine)
+                        .append("[Events]").append(newLine)
+                        .append("Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text").append(newLine);
+                break;
+            case TTML:
+                sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(newLine)
+                        .append("<tt xml:lang=\"en\" xmlns=\"http://www.w3.org/ns/ttml\" xmlns:tts=\"http://www.w3.org/ns/ttml#styling\">").append(newLine)
+                        .append("<head><styling>").append(newLine)
+                        .append("<style xml:id=\"s1\" tts:color=\"white\" tts:fontStyle=\"italic\"/>").append(newLine)
+                        .append("</styling></head>").append(newLine)
+                        .append("<body><div>").append(newLine);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void footer(StringBuilder sb) {
+        if (format == Format.TTML) {
+            sb.append("</div></body></tt>").append(newLine);
+        }
+    }
+
+    private void cue(StringBuilder sb, int number, int start, int end) {
+        switch (format) {
+            case SRT:
+            case VTT:
+                TimeFormat timeFormat = format == Format.SRT ? TimeFormat.SRT_MS : TimeFormat.VTT_MS;
+                sb.append(number).append(newLine);
+                timeFormat.format(start, sb);
+                sb.append(" --> ");
+                timeFormat.format(end, sb);
+                sb.append(newLine);
+                text(sb, newLine);
+                sb.append(newLine).append(newLine);
+                break;
+            case ASS:
+                sb.append("Dialogue: 0,");
+                TimeFormat.ASS_CS.format(start, sb);
+                sb.append(',');
+                TimeFormat.ASS_CS.format(end, sb);
+                sb.append(number % 5 == 0 ? ",Italic" : ",Default").append(",,0000,0000,0000,,");
+                text(sb, "\\N");
+                sb.append(newLine);
+                break;
+            case TTML:
+                sb.append("<p begin=\"");
+                TimeFormat.VTT_MS.format(start, sb);
+                sb.append("\" end=\"");
+                TimeFormat.VTT_MS.format(end, sb);
+                sb.append(number % 5 == 0 ? "\" style=\"s1\">" : "\">");
+                text(sb, "<br/>");
+                sb.append("</p>").append(newLine);
+                break;
+        }
+    }
+
+    private void text(StringBuilder sb, String lineBreak) {
+        int lines = 1 + random.nextInt(2);
+        for (int line = 0; line < lines; line++) {
+            if (line > 0) {
+                sb.append(lineBreak);
+            }
+            int words = 2 + random.nextInt(6);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    sb.append(' ');
+                }
+                word(sb, WORDS[random.nextInt(WORDS.length)], w);
+            }
+        }
+    }
+
+    private void word(StringBuilder sb, String word, int index) {
+        if (shape != Shape.MARKUP) {
+            sb.append(word);
+            return;
+        }
+        switch (format) {
+            case ASS:
+                sb.append("{\\i1}{\\c&H00FFFF&}").append(word).append("{\\i0}");
+                break;
+            case TTML:
+                //the parser only keeps text directly inside the paragraph, so every other word is left bare
+                if (index % 2 == 0) {
+                    sb.append(word);
+                } else {
+                    sb.append("<span tts:fontWeight=\"bold\">").append(word).append("</span>");
+                }
+                break;
+            case VTT:
+                sb.append("<c.yellow><i>").append(word).append("</i></c>");
+                break;
+            default:
+                sb.append("<font color=\"#ffcc00\"><i>").append(word).append("</i></font>");
+                break;
+        }
+    }
+
+    /**
+     * Writes a corpus to disk, for use outside of JMH.
+     * <p>
+     * Usage: CorpusGenerator &lt;directory&gt; [cues...]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CorpusGenerator <directory> [cues...]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+        int[] sizes = {100, 2000, 50000};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        Charset utf8 = Charset.forName("UTF-8");
+        for (Format format : Format.values()) {
+            for (Shape shape : Shape.values()) {
+                for (int cues : sizes) {
+                    String name = cues + "-" + shape.name().toLowerCase() + "." + format.extension;
+                    Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, name)), utf8);
+                    try {
+                        writer.write(generate(format, cues, shape));
+                    } finally {
+                        writer.close();
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert.benchmarks;
+
+import com.github.se_bastiaan.captionconvert.TimedTextFileFormat;
+import com.github.se_bastiaan.captionconvert.TimedTextObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken by parseFile to turn a whole file into a TimedTextObject, and by readFrom to load the
+ * same object from its binary form instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param
+    public CorpusGenerator.Format format;
+
+    @Param({"100", "2000", "50000"})
+    public int cues;
+
+    @Param
+    public CorpusGenerator.Shape shape;
+
+    private TimedTextFileFormat parser;
+    private String input;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        parser = format.create();
+        input = CorpusGenerator.generate(format, cues, shape);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parser.parseFile("benchmark." + format.extension, input).writeTo(out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public TimedTextObject parseFile() throws Exception {
+        return parser.parseFile("benchmark." + format.extension, input);
+    }
+
+    @Benchmark
+    public TimedTextObject readBinary() throws Exception {
+        return TimedTextObject.readFrom(ByteBuffer.wrap(binary));
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert.benchmarks;
+
+import com.github.se_bastiaan.captionconvert.Time;
+import com.github.se_bastiaan.captionconvert.TimeFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single timestamp, parsed and formatted through the precompiled codecs, the char buffer
+ * variant the writers use, and through the pattern based Time constructor and Time.getTime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeBenchmark {
+
+    @Param({"srt", "vtt", "ass"})
+    public String codec;
+
+    private TimeFormat format;
+    private String pattern;
+    private String value;
+    private int milliseconds;
+    private char[] buffer;
+
+    @Setup
+    public void setUp() {
+        if ("srt".equals(codec)) {
+            format = TimeFormat.SRT_MS;
+            pattern = "hh:mm:ss,ms";
+        } else if ("vtt".equals(codec)) {
+            format = TimeFormat.VTT_MS;
+            pattern = "hh:mm:ss.ms";
+        } else {
+            format = TimeFormat.ASS_CS;
+            pattern = "h:mm:ss.cs";
+        }
+        milliseconds = 5025730;
+        value = format.format(milliseconds);
+        buffer = new char[TimeFormat.MAX_LENGTH];
+    }
+
+    @Benchmark
+    public int parse() {
+        return format.parse(value);
+    }
+
+    @Benchmark
+    public String format() {
+        return format.format(milliseconds);
+    }
+
+    @Benchmark
+    public void formatToBuffer(Blackhole blackhole) {
+        blackhole.consume(format.format(milliseconds, buffer, 0));
+        blackhole.consume(buffer);
+    }
+
+    @Benchmark
+    public int parsePattern() {
+        return new Time(pattern, value).getMilliseconds();
+    }
+
+    @Benchmark
+    public String getTime() {
+        return new Time(milliseconds).getTime(format);
+    }
+
+}
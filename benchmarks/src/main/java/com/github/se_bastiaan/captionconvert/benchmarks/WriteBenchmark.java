@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert.benchmarks;
+
+import com.github.se_bastiaan.captionconvert.TimedTextFileFormat;
+import com.github.se_bastiaan.captionconvert.TimedTextObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time taken to write a parsed file back out, both through toFile and by streaming it into an
+ * Appendable that is reused between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param
+    public CorpusGenerator.Format format;
+
+    @Param({"100", "2000", "50000"})
+    public int cues;
+
+    @Param
+    public CorpusGenerator.Shape shape;
+
+    private TimedTextFileFormat writer;
+    private TimedTextObject tto;
+    private StringBuilder out;
+
+    @Setup
+    public void setUp() throws Exception {
+        writer = format.create();
+        tto = writer.parseFile("benchmark." + format.extension, CorpusGenerator.generate(format, cues, shape));
+        out = new StringBuilder();
+    }
+
+    @Benchmark
+    public Object toFile() {
+        return writer.toFile(tto);
+    }
+
+    @Benchmark
+    public int write() throws Exception {
+        out.setLength(0);
+        writer.write(tto, out);
+        return out.length();
+    }
+
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs many conversions in parallel on an executor.
+ * <p>
+ * At most maxPending jobs are queued or running at any time, {@link #submit(Job, Callback)} blocks
+ * until there is room for another one, so feeding it a whole catalog doesn't fill the memory with
+ * waiting jobs. Any executor can be used: a fixed pool on Android, or one virtual thread per job on
+ * a JVM that supports them. Jobs running longer than the timeout are cancelled, the reader they parse
+ * from stops at the next read once that happens.
+ */
+public class BatchConverter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Source of the text of a subtitle file, opened when the job starts.
+     */
+    public interface Input {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Destination of the converted subtitle file, opened after the input. Common pairs of formats are
+     * written while the input is still being read, so a failed job may leave a partial file behind.
+     */
+    public interface Output {
+        Writer open() throws IOException;
+    }
+
+    /**
+     * Receives the outcome of a job, on the thread that ran it.
+     */
+    public interface Callback {
+        void onConverted(Result result);
+
+        /**
+         * @param job   the job that failed
+         * @param error what went wrong, a TimeoutException if the job took too long
+         */
+        void onFailed(Job job, Throwable error);
+    }
+
+    /**
+     * A single conversion. Formats are stateless, so the instances in {@link Formats} can be used
+     * by all jobs.
+     */
+    public static class Job {
+
+        /**
+         * Timeout of a job that uses the timeout of the converter
+         */
+        public static final long DEFAULT_TIMEOUT = -1;
+
+        public final String fileName;
+        public final Input input;
+        public final TimedTextFileFormat from;
+        public final TimedTextFileFormat to;
+        public final Output output;
+        /**
+         * Maximum time this job may run in milliseconds, 0 for no limit or {@link #DEFAULT_TIMEOUT}
+         */
+        public final long timeoutMillis;
+
+        /**
+         * @param fileName name of the input, as passed to parseFile
+         * @param input    source of the file to convert
+         * @param from     format of the input
+         * @param to       format to convert to
+         * @param output   destination of the converted file, or null to keep the result of toFile
+         *                 in {@link Result#file}
+         */
+        public Job(String fileName, Input input, TimedTextFileFormat from, TimedTextFileFormat to, Output output) {
+            this(fileName, input, from, to, output, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @param fileName name of the input, as passed to parseFile
+         * @param input    source of the file to convert
+         * @param from     format of the input
+         * @param to       format to convert to
+         * @param output   destination of the converted file, or null to keep the result of toFile
+         *                 in {@link Result#file}
+         * @param timeout  maximum time this job may run, 0 for no limit or {@link #DEFAULT_TIMEOUT}
+         *                 to use the timeout of the converter
+         * @param unit     unit of the timeout
+         */
+        public Job(String fileName, Input input, TimedTextFileFormat from, TimedTextFileFormat to, Output output, long timeout, TimeUnit unit) {
+            this.fileName = fileName;
+            this.input = input;
+            this.from = from;
+            this.to = to;
+            this.output = output;
+            this.timeoutMillis = timeout < 0 ? DEFAULT_TIMEOUT : unit.toMillis(timeout);
+        }
+
+        /**
+         * @return a job converting one UTF-8 encoded file into another
+         */
+        public static Job forFiles(final File in, TimedTextFileFormat from, final File out, TimedTextFileFormat to) {
+            return new Job(in.getPath(), new Input() {
+                @Override
+                public InputStream open() throws IOException {
+                    return new FileInputStream(in);
+                }
+            }, from, to, new Output() {
+                @Override
+                public Writer open() throws IOException {
+                    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), UTF_8));
+                }
+            });
+        }
+
+    }
+
+    public static class Result {
+
+        public final Job job;
+        /**
+         * What toFile returned, null when the job wrote to an output
+         */
+        public final Object file;
+        public final Diagnostics diagnostics;
+
+        Result(Job job, Object file, Diagnostics diagnostics) {
+            this.job = job;
+            this.file = file;
+            this.diagnostics = diagnostics;
+        }
+
+    }
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxPending;
+    private final Semaphore pending;
+    private final long timeoutMillis;
+    private volatile Diagnostics.Level diagnosticsLevel = Diagnostics.Level.COUNT_ONLY;
+    //created when the first job with a timeout runs
+    private ScheduledExecutorService timer;
+    private boolean shutdown;
+
+    /**
+     * Creates a converter running on its own pool, without a timeout.
+     *
+     * @param threads number of jobs running at the same time
+     */
+    public BatchConverter(int threads) {
+        this(Executors.newFixedThreadPool(threads), true, threads * 4, 0);
+    }
+
+    /**
+     * @param executor   runs the jobs, it isn't shut down by {@link #shutdown()}
+     * @param maxPending maximum number of jobs queued or running at the same time
+     * @param timeout    maximum time a job may run, 0 for no limit; jobs can set their own
+     * @param unit       unit of the timeout
+     */
+    public BatchConverter(ExecutorService executor, int maxPending, long timeout, TimeUnit unit) {
+        this(executor, false, maxPending, unit.toMillis(timeout));
+    }
+
+    private BatchConverter(ExecutorService executor, boolean ownsExecutor, int maxPending, long timeoutMillis) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return how much of the parsing warnings of every job is kept in its result
+     */
+    public Diagnostics.Level getDiagnosticsLevel() {
+        return diagnosticsLevel;
+    }
+
+    /**
+     * @param level how much of the parsing warnings is kept in the result of the jobs submitted from now
+     *              on, {@link Diagnostics.Level#COUNT_ONLY} by default
+     */
+    public void setDiagnosticsLevel(Diagnostics.Level level) {
+        diagnosticsLevel = level;
+    }
+
+    /**
+     * Queues a job, waiting for room if maxPending jobs are queued or running already.
+     *
+     * @param job the conversion to run
+     * @return the result of the job
+     * @throws InterruptedException when interrupted while waiting for room
+     */
+    public Future<Result> submit(Job job) throws InterruptedException {
+        return submit(job, null);
+    }
+
+    /**
+     * Queues a job, waiting for room if maxPending jobs are queued or running already.
+     *
+     * @param job      the conversion to run
+     * @param callback receiver of the outcome, or null
+     * @return the result of the job
+     * @throws InterruptedException when interrupted while waiting for room
+     */
+    public Future<Result> submit(Job job, Callback callback) throws InterruptedException {
+        pending.acquire();
+        JobTask task = new JobTask(job, callback, diagnosticsLevel);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * Waits until every job submitted so far has finished.
+     *
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public void awaitCompletion() throws InterruptedException {
+        pending.acquire(maxPending);
+        pending.release(maxPending);
+    }
+
+    /**
+     * Stops the timeout timer and the pool if the converter created it. Jobs already submitted
+     * still run.
+     */
+    public void shutdown() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+        synchronized (this) {
+            shutdown = true;
+            if (timer != null) {
+                timer.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return the timer for the timeouts, or null once the converter has been shut down
+     */
+    private synchronized ScheduledExecutorService timer() {
+        if (timer == null && !shutdown) {
+            timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "BatchConverter timeouts");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return timer;
+    }
+
+    private static Result convert(Job job, Diagnostics diagnostics) throws IOException, ParsingException {
+        InputStream is = job.input.open();
+        try {
+            Reader reader = new InterruptibleReader(new InputStreamReader(is, UTF_8));
+            if (job.output == null) {
+                TimedTextObject tto = job.from.parseFile(job.fileName, reader, diagnostics);
+                return new Result(job, job.to.toFile(tto), diagnostics);
+            }
+            //written straight to the output, without a TimedTextObject in between for the common pairs
+            Writer out = job.output.open();
+            try {
+                Transcoder.forFormats(job.from, job.to).transcode(job.fileName, reader, out, diagnostics);
+            } finally {
+                out.close();
+            }
+        } finally {
+            is.close();
+        }
+        return new Result(job, null, diagnostics);
+    }
+
+    private class JobTask extends FutureTask<Result> {
+
+        private final Job job;
+        private final Callback callback;
+        private volatile boolean timedOut;
+
+        JobTask(final Job job, Callback callback, final Diagnostics.Level level) {
+            super(new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    return convert(job, new Diagnostics(level));
+                }
+            });
+            this.job = job;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                //the time a job waits in the queue doesn't count
+                long limit = job.timeoutMillis == Job.DEFAULT_TIMEOUT ? timeoutMillis : job.timeoutMillis;
+                ScheduledFuture<?> timeout = null;
+                if (limit > 0 && !isDone()) {
+                    ScheduledExecutorService timer = timer();
+                    if (timer != null) {
+                        timeout = timer.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                timedOut = true;
+                                cancel(true);
+                            }
+                        }, limit, TimeUnit.MILLISECONDS);
+                    }
+                }
+                //returns once the job has stopped, also when it was cancelled while running
+                super.run();
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                if (isCancelled()) {
+                    //the interrupt was meant for the job, not for the callback
+                    Thread.interrupted();
+                }
+                report(limit);
+            } finally {
+                //only released here, so a cancelled job keeps its place until its thread is done with it
+                pending.release();
+            }
+        }
+
+        private void report(long limit) {
+            if (callback == null) {
+                return;
+            }
+            try {
+                deliver(limit);
+            } catch (RuntimeException e) {
+                //a failing callback is no failure of the job, and must not take the worker thread down
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        private void deliver(long limit) {
+            try {
+                callback.onConverted(get());
+            } catch (CancellationException e) {
+                callback.onFailed(job, timedOut ? new TimeoutException(job.fileName + " took longer than " + limit + " ms") : e);
+            } catch (ExecutionException e) {
+                callback.onFailed(job, e.getCause());
+            } catch (InterruptedException e) {
+                //get() doesn't block once the task is done
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    /**
+     * Stops a cancelled job at its next read, the parsers don't check for interruption themselves.
+     */
+    private static class InterruptibleReader extends FilterReader {
+
+        InterruptibleReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkInterrupted();
+            return super.read();
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            checkInterrupted();
+            return super.read(buffer, offset, length);
+        }
+
+        private static void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("conversion cancelled");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Binary form of a {@link TimedTextObject}, to keep parsed files around without parsing them again.
+ * <pre>
+ * magic      "CCTT"
+ * version    varint, currently 1
+ * flags      byte, 1 = useASSInsteadOfSSA, 2 = built
+ * offset     zigzag varint
+ * text       varint byte length, then every string of the object as one block of UTF-8
+ * metadata   title, description, copyright, author, fileName and language as strings
+ * styles     varint count, then per style: id, font, fontSize, color, backgroundColor and textAlign
+ *            as strings and a byte of flags, 1 = italic, 2 = bold, 4 = underline, 8 = in styling
+ * captions   varint count, then per caption in order of start time: varint style index + 1 or 0,
+ *            zigzag varint start minus the previous start, zigzag varint end minus start, content string
+ * </pre>
+ * A string is a varint holding its length in chars + 1, or 0 for null; its chars are the next ones in
+ * the text block. Reading decodes the text block at once and the content of the captions is only cut
+ * out of it when it is read.
+ */
+final class BinaryCodec {
+
+    static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] MAGIC = {'C', 'C', 'T', 'T'};
+
+    //fewest bytes a style or caption takes: a one byte varint for each field, and the style flags
+    private static final int STYLE_MIN_SIZE = 7;
+    private static final int CAPTION_MIN_SIZE = 4;
+
+    private BinaryCodec() {
+    }
+
+    static void write(TimedTextObject tto, OutputStream out) throws IOException {
+        StringBuilder text = new StringBuilder();
+        ByteArrayOutputStream structure = new ByteArrayOutputStream();
+
+        writeString(structure, text, tto.title);
+        writeString(structure, text, tto.description);
+        writeString(structure, text, tto.copyright);
+        writeString(structure, text, tto.author);
+        writeString(structure, text, tto.fileName);
+        writeString(structure, text, tto.language);
+
+        //every style once, also the ones captions use without them being in styling
+        StyleTable styles = new StyleTable(tto);
+        writeVarint(structure, styles.size());
+        for (int i = 0; i < styles.size(); i++) {
+            Style style = styles.get(i);
+            writeString(structure, text, style.id);
+            writeString(structure, text, style.font);
+            writeString(structure, text, style.fontSize);
+            writeString(structure, text, style.color);
+            writeString(structure, text, style.backgroundColor);
+            writeString(structure, text, style.textAlign);
+            structure.write(styles.flags(i));
+        }
+
+        writeVarint(structure, tto.captions.size());
+        int previousStart = 0;
+        for (Caption caption : tto.captions) {
+            writeVarint(structure, styles.indexOf(caption.style) + 1);
+            int start = caption.start.getMilliseconds();
+            writeVarint(structure, zigzag(start - previousStart));
+            writeVarint(structure, zigzag(caption.end.getMilliseconds() - start));
+            writeString(structure, text, caption.getContent());
+            previousStart = start;
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(16);
+        header.write(MAGIC);
+        writeVarint(header, VERSION);
+        header.write(StyleTable.flags(tto));
+        writeVarint(header, zigzag(tto.offset));
+        byte[] textBytes = text.toString().getBytes(UTF_8);
+        writeVarint(header, textBytes.length);
+        header.writeTo(out);
+        out.write(textBytes);
+        structure.writeTo(out);
+    }
+
+    static TimedTextObject read(ByteBuffer in) throws ParsingException {
+        try {
+            for (byte b : MAGIC) {
+                if (in.get() != b) {
+                    throw new ParsingException("Not a binary TimedTextObject");
+                }
+            }
+            int version = readVarint(in);
+            if (version != VERSION) {
+                throw new ParsingException("Unsupported binary TimedTextObject version " + version);
+            }
+            TimedTextObject tto = new TimedTextObject();
+            StyleTable.setFlags(tto, in.get());
+            tto.offset = unzigzag(readVarint(in));
+
+            Strings strings = new Strings(in, decode(in, readVarint(in)));
+            tto.title = strings.string();
+            tto.description = strings.string();
+            tto.copyright = strings.string();
+            tto.author = strings.string();
+            tto.fileName = strings.string();
+            tto.language = strings.string();
+
+            Style[] styles = new Style[readCount(in, STYLE_MIN_SIZE)];
+            boolean[] inStyling = new boolean[styles.length];
+            for (int i = 0; i < styles.length; i++) {
+                Style style = new Style(strings.string());
+                style.font = strings.string();
+                style.fontSize = strings.string();
+                style.color = strings.string();
+                style.backgroundColor = strings.string();
+                style.textAlign = strings.string();
+                int styleFlags = in.get();
+                StyleTable.setFlags(style, styleFlags);
+                inStyling[i] = (styleFlags & StyleTable.IN_STYLING) != 0;
+                styles[i] = style;
+            }
+            //the order of styling is not kept, it is up to the Hashtable
+            for (int i = 0; i < styles.length; i++) {
+                if (inStyling[i]) {
+                    tto.styling.put(styles[i].id, styles[i]);
+                }
+            }
+
+            int count = readCount(in, CAPTION_MIN_SIZE);
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                Caption caption = new Caption();
+                int style = readVarint(in);
+                if (style < 0 || style > styles.length) {
+                    throw new ParsingException("Style " + style + " of caption " + i + " doesn't exist in binary TimedTextObject");
+                }
+                caption.style = style == 0 ? null : styles[style - 1];
+                start += unzigzag(readVarint(in));
+                caption.start = new Time(start);
+                caption.end = new Time(start + unzigzag(readVarint(in)));
+                strings.content(caption);
+                tto.captions.add(caption);
+            }
+            return tto;
+        } catch (BufferUnderflowException e) {
+            throw new ParsingException("Truncated or corrupt binary TimedTextObject");
+        }
+    }
+
+    /**
+     * Reads the number of records that follow, checking that there are enough bytes left for them
+     * before anything is allocated for a corrupt count.
+     */
+    private static int readCount(ByteBuffer in, int minSize) throws ParsingException {
+        int count = readVarint(in);
+        if (count < 0 || (long) count * minSize > in.remaining()) {
+            throw new ParsingException("Truncated or corrupt binary TimedTextObject");
+        }
+        return count;
+    }
+
+    private static String decode(ByteBuffer in, int length) throws ParsingException {
+        if (length < 0 || length > in.remaining()) {
+            throw new ParsingException("Truncated or corrupt binary TimedTextObject");
+        }
+        if (in.hasArray()) {
+            String text = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+            in.position(in.position() + length);
+            return text;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, StringBuilder text, String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+        } else {
+            writeVarint(out, value.length() + 1);
+            text.append(value);
+        }
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarint(ByteBuffer in) throws ParsingException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new ParsingException("Malformed varint in binary TimedTextObject");
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Hands out the strings of the text block in order.
+     */
+    private static final class Strings {
+
+        private final ByteBuffer in;
+        private final String text;
+        private int position;
+
+        Strings(ByteBuffer in, String text) {
+            this.in = in;
+            this.text = text;
+        }
+
+        String string() throws ParsingException {
+            int length = readVarint(in);
+            if (length == 0) {
+                return null;
+            }
+            int start = position;
+            skip(length);
+            return text.substring(start, position);
+        }
+
+        void content(Caption caption) throws ParsingException {
+            int length = readVarint(in);
+            if (length == 0) {
+                caption.setContent(null);
+                return;
+            }
+            int start = position;
+            skip(length);
+            caption.setLazyContent(new Slice(text, start, position));
+        }
+
+        /**
+         * Moves past the next string, its length being stored one higher than it is.
+         */
+        private void skip(int length) throws ParsingException {
+            if (length < 1 || length - 1 > text.length() - position) {
+                throw new ParsingException("String of length " + (length - 1) + " at " + position
+                        + " is outside the text of binary TimedTextObject");
+            }
+            position += length - 1;
+        }
+
+    }
+
+    private static final class Slice extends LazyContent {
+
+        private final String text;
+        private final int start;
+        private final int end;
+
+        Slice(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        String decode() {
+            return text.substring(start, end);
+        }
+
+    }
+
+}
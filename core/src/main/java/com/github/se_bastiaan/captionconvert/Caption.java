@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+public class Caption {
+
+    public Style style;
+    public Time start;
+    public Time end;
+
+    /**
+     * Text of the caption, with {@code <br />} as line breaks. The parsers set it directly, except
+     * for the opt-in readers of mapped files, {@link BinaryCodec} and {@link CaptionArchive}: those
+     * leave it null until {@link #getContent()} is called, so read it through that method when the
+     * source of a caption isn't known. Assigning it replaces any text not decoded yet.
+     */
+    public String content = "";
+
+    //text that hasn't been decoded into content yet
+    private volatile LazyContent lazyContent;
+    //plain text made from content, together with the content it was made from
+    private volatile PlainText plainText;
+
+    /**
+     * @return the text of the caption, decoding it first if that hasn't happened yet
+     */
+    public String getContent() {
+        LazyContent lazy = lazyContent;
+        if (lazy != null) {
+            //content is only set while text is pending when it was assigned directly, which wins
+            if (content == null) {
+                content = lazy.decode();
+            }
+            //content is written before the volatile field, so other threads see it once this is null
+            lazyContent = null;
+        }
+        return content;
+    }
+
+    /**
+     * The text without markup: tags are removed and line breaks become '\n', trailing line breaks
+     * are dropped. It is made on first use and kept until the content changes.
+     *
+     * @return the plain text of the caption, null if it has no text
+     */
+    public String getText() {
+        String content = getContent();
+        if (content == null) {
+            return null;
+        }
+        PlainText cached = plainText;
+        //content is public, so compare against it instead of relying on setContent
+        if (cached == null || cached.content != content) {
+            cached = new PlainText(content, Markup.plainText(content));
+            plainText = cached;
+        }
+        return cached.text;
+    }
+
+    /**
+     * @param content the new text of the caption, replacing any text not decoded yet
+     */
+    public void setContent(String content) {
+        lazyContent = null;
+        this.content = content;
+    }
+
+    void setLazyContent(LazyContent lazyContent) {
+        this.content = null;
+        this.lazyContent = lazyContent;
+    }
+
+    private static final class PlainText {
+
+        final String content;
+        final String text;
+
+        PlainText(String content, String text) {
+            this.content = content;
+            this.text = text;
+        }
+
+    }
+
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Many subtitle tracks in one file, meant to be memory mapped. Every track has its captions sorted by
+ * start time in fixed size records, so the captions around a point in time are found with a binary
+ * search without reading the rest of the track, and their text is only decoded when it is read.
+ * <br><br>
+ * Archives are written with a {@link Builder} from any parsed {@link TimedTextObject} and opened with
+ * {@link #open(File)}. An open archive only reads its buffer and can be used from any number of
+ * threads at once. Files are limited to 2 GB, the most a single mapping can hold.
+ * <pre>
+ * archive  "CCAR", int version, int track count, int offset of every track
+ * track    int caption count, int style count, int flags (1 = ASS, 2 = built), int offset,
+ *          int text length, 7 strings (name, title, description, copyright, author, fileName,
+ *          language), the styles, the captions and the text
+ * style    6 strings (id, font, fontSize, color, backgroundColor, textAlign), int flags
+ *          (1 = italic, 2 = bold, 4 = underline, 8 = in styling)
+ * caption  int start, int end, int style index or -1, int start of its text or its complement (~start)
+ *          when the text is null, int highest end of this and all earlier captions; the text runs
+ *          until the start of the text of the next caption
+ * string   int start and int length in the text of the track, start -1 for null
+ * </pre>
+ * All ints are big endian and all text is UTF-8.
+ */
+public class CaptionArchive {
+
+    static final int VERSION = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] MAGIC = {'C', 'C', 'A', 'R'};
+
+    private static final int TRACK_HEADER = 20 + 7 * 8;
+    private static final int STYLE_SIZE = 6 * 8 + 4;
+    private static final int CAPTION_SIZE = 20;
+
+    private final ByteBuffer buffer;
+    private final Track[] tracks;
+    private final HashMap<String, Integer> names = new HashMap<>();
+
+    private CaptionArchive(ByteBuffer buffer) throws ParsingException {
+        this.buffer = buffer;
+        if (buffer.limit() < 12) {
+            throw new ParsingException("Not a caption archive");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new ParsingException("Not a caption archive");
+            }
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new ParsingException("Unsupported caption archive version " + version);
+        }
+        int count = buffer.getInt(8);
+        if (count < 0 || 12 + 4L * count > buffer.limit()) {
+            throw new ParsingException("Corrupt caption archive, it can't hold " + count + " tracks");
+        }
+        tracks = new Track[count];
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.getInt(12 + 4 * i);
+            if (offset < 0 || (long) offset + TRACK_HEADER > buffer.limit()) {
+                throw new ParsingException("Corrupt caption archive, track " + i + " is out of bounds");
+            }
+            tracks[i] = new Track(offset);
+            String name = tracks[i].getName();
+            if (name != null && !names.containsKey(name)) {
+                names.put(name, i);
+            }
+        }
+    }
+
+    /**
+     * Maps an archive file into memory.
+     *
+     * @param file the archive
+     * @return the opened archive
+     * @throws java.io.IOException when having trouble mapping the file
+     * @throws ParsingException when the file is not an archive of a supported version
+     */
+    public static CaptionArchive open(File file) throws IOException, ParsingException {
+        return new CaptionArchive(TimedTextFileFormat.map(file));
+    }
+
+    /**
+     * @param buffer the bytes of an archive, from index 0 to the limit; they must not change while the
+     *               archive is in use
+     * @return the opened archive
+     * @throws ParsingException when the bytes are not an archive of a supported version
+     */
+    public static CaptionArchive wrap(ByteBuffer buffer) throws ParsingException {
+        return new CaptionArchive(buffer);
+    }
+
+    /**
+     * @return the number of tracks
+     */
+    public int getTrackCount() {
+        return tracks.length;
+    }
+
+    /**
+     * @param index position of the track, in the order they were added
+     * @return the track
+     */
+    public Track getTrack(int index) {
+        return tracks[index];
+    }
+
+    /**
+     * @param name name the track was added with
+     * @return the first track with that name, or null if there is none
+     */
+    public Track getTrack(String name) {
+        Integer index = names.get(name);
+        return index == null ? null : tracks[index];
+    }
+
+    /**
+     * One subtitle track of the archive, reading straight from the mapped file. Its styles are read
+     * when the archive is opened, everything else when it is asked for.
+     */
+    public class Track {
+
+        private final int offset;
+        private final int size;
+        private final int captions;
+        private final int text;
+        private final int textLength;
+        private final Style[] styles;
+
+        Track(int offset) throws ParsingException {
+            this.offset = offset;
+            this.size = buffer.getInt(offset);
+            int styleCount = buffer.getInt(offset + 4);
+            this.textLength = buffer.getInt(offset + 16);
+            int styleTable = offset + TRACK_HEADER;
+            this.captions = styleTable + styleCount * STYLE_SIZE;
+            this.text = captions + size * CAPTION_SIZE;
+            if (size < 0 || styleCount < 0 || textLength < 0
+                    || (long) styleTable + (long) styleCount * STYLE_SIZE + (long) size * CAPTION_SIZE + textLength > buffer.limit()) {
+                throw new ParsingException("Corrupt caption archive, track at " + offset + " is out of bounds");
+            }
+            for (int i = 0; i < 7; i++) {
+                checkString(offset + 20 + i * 8);
+            }
+            styles = new Style[styleCount];
+            for (int i = 0; i < styleCount; i++) {
+                int record = styleTable + i * STYLE_SIZE;
+                for (int j = 0; j < 6; j++) {
+                    checkString(record + j * 8);
+                }
+                Style style = new Style(string(record));
+                style.font = string(record + 8);
+                style.fontSize = string(record + 16);
+                style.color = string(record + 24);
+                style.backgroundColor = string(record + 32);
+                style.textAlign = string(record + 40);
+                StyleTable.setFlags(style, buffer.getInt(record + 48));
+                styles[i] = style;
+            }
+            checkCaptions();
+        }
+
+        /**
+         * @return the name the track was added with
+         */
+        public String getName() {
+            return string(offset + 20);
+        }
+
+        /**
+         * @return the number of captions
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index position of the caption, in order of start time
+         * @return the start time of the caption in milliseconds
+         */
+        public int getStart(int index) {
+            return buffer.getInt(record(index));
+        }
+
+        /**
+         * @param index position of the caption, in order of start time
+         * @return the end time of the caption in milliseconds
+         */
+        public int getEnd(int index) {
+            return buffer.getInt(record(index) + 4);
+        }
+
+        /**
+         * @param index position of the caption, in order of start time
+         * @return the style of the caption, or null if it has none
+         */
+        public Style getStyle(int index) {
+            int style = buffer.getInt(record(index) + 8);
+            return style < 0 ? null : styles[style];
+        }
+
+        /**
+         * @param index position of the caption, in order of start time
+         * @return the text of the caption, in the same form as {@link Caption#content}
+         */
+        public String getContent(int index) {
+            int start = buffer.getInt(record(index) + 12);
+            return start < 0 ? null : MappedCueParser.decode(buffer, text + start, text + textEnd(index));
+        }
+
+        /**
+         * Creates a Caption holding the data of the caption at the given position, its text is only
+         * decoded when it is read.
+         *
+         * @param index position of the caption, in order of start time
+         * @return a new Caption
+         */
+        public Caption getCaption(int index) {
+            int record = record(index);
+            Caption caption = new Caption();
+            caption.start = new Time(buffer.getInt(record));
+            caption.end = new Time(buffer.getInt(record + 4));
+            caption.style = getStyle(index);
+            int start = buffer.getInt(record + 12);
+            if (start < 0) {
+                caption.setContent(null);
+            } else {
+                caption.setLazyContent(new ArchivedText(buffer, text + start, text + textEnd(index)));
+            }
+            return caption;
+        }
+
+        /**
+         * Binary search for the first caption starting at or after the given time.
+         *
+         * @param milliseconds time to search for
+         * @return position of that caption, or {@link #size()} if all captions start before the given time
+         */
+        public int ceilingIndex(int milliseconds) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(captions + mid * CAPTION_SIZE) < milliseconds) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Binary search for the last caption starting at or before the given time.
+         *
+         * @param milliseconds time to search for
+         * @return position of that caption, or -1 if all captions start after the given time
+         */
+        public int floorIndex(int milliseconds) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(captions + mid * CAPTION_SIZE) <= milliseconds) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low - 1;
+        }
+
+        /**
+         * @param milliseconds point in time
+         * @return the captions showing at that time, starting at or before it and ending after it
+         */
+        public List<Caption> getCaptionsAt(int milliseconds) {
+            //no caption ends after the last millisecond, so there is nothing to find there
+            return getCaptionsBetween(milliseconds, milliseconds == Integer.MAX_VALUE ? milliseconds : milliseconds + 1);
+        }
+
+        /**
+         * @param from start of the range, inclusive
+         * @param to   end of the range, exclusive
+         * @return the captions showing at some point in the range, in order of start time
+         */
+        public List<Caption> getCaptionsBetween(int from, int to) {
+            ArrayList<Caption> result = new ArrayList<>();
+            for (int i = firstEndingAfter(from); i < size; i++) {
+                int record = record(i);
+                if (buffer.getInt(record) >= to) {
+                    break;
+                }
+                if (buffer.getInt(record + 4) > from) {
+                    result.add(getCaption(i));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Reads the whole track back into a TimedTextObject, decoding the text of its captions when
+         * they are read. The order of its styling is not kept.
+         *
+         * @return a new TimedTextObject
+         */
+        public TimedTextObject toTimedTextObject() {
+            TimedTextObject tto = new TimedTextObject();
+            StyleTable.setFlags(tto, buffer.getInt(offset + 8));
+            tto.offset = buffer.getInt(offset + 12);
+            tto.title = string(offset + 28);
+            tto.description = string(offset + 36);
+            tto.copyright = string(offset + 44);
+            tto.author = string(offset + 52);
+            tto.fileName = string(offset + 60);
+            tto.language = string(offset + 68);
+            for (int i = 0; i < styles.length; i++) {
+                int record = offset + TRACK_HEADER + i * STYLE_SIZE;
+                if ((buffer.getInt(record + 48) & StyleTable.IN_STYLING) != 0) {
+                    tto.styling.put(styles[i].id, styles[i]);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                tto.captions.add(getCaption(i));
+            }
+            return tto;
+        }
+
+        /**
+         * @return the first position from which a caption may still show after the given time
+         */
+        private int firstEndingAfter(int milliseconds) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(captions + mid * CAPTION_SIZE + 16) <= milliseconds) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int record(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return captions + index * CAPTION_SIZE;
+        }
+
+        private int textEnd(int index) {
+            if (index + 1 == size) {
+                return textLength;
+            }
+            int next = buffer.getInt(captions + (index + 1) * CAPTION_SIZE + 12);
+            //the text of the next caption is null, but its start is still kept
+            return next < 0 ? ~next : next;
+        }
+
+        /**
+         * Checks what the searches and the reading of the text rely on: starts in order, the highest
+         * ends, styles that exist and texts that follow each other inside the text of the track.
+         */
+        private void checkCaptions() throws ParsingException {
+            int previousStart = Integer.MIN_VALUE;
+            int previousText = 0;
+            int maxEnd = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                int record = captions + i * CAPTION_SIZE;
+                int start = buffer.getInt(record);
+                maxEnd = Math.max(maxEnd, buffer.getInt(record + 4));
+                int style = buffer.getInt(record + 8);
+                int textStart = buffer.getInt(record + 12);
+                if (textStart < 0) {
+                    textStart = ~textStart;
+                }
+                if (start < previousStart) {
+                    throw new ParsingException("Corrupt caption archive, caption " + i + " of track at " + offset + " is out of order");
+                }
+                if (style < -1 || style >= styles.length) {
+                    throw new ParsingException("Corrupt caption archive, caption " + i + " of track at " + offset + " has no style " + style);
+                }
+                if (textStart < previousText || textStart > textLength) {
+                    throw new ParsingException("Corrupt caption archive, text of caption " + i + " of track at " + offset + " is out of bounds");
+                }
+                if (buffer.getInt(record + 16) != maxEnd) {
+                    throw new ParsingException("Corrupt caption archive, caption " + i + " of track at " + offset + " has a wrong highest end");
+                }
+                previousStart = start;
+                previousText = textStart;
+            }
+        }
+
+        private void checkString(int reference) throws ParsingException {
+            int start = buffer.getInt(reference);
+            int length = buffer.getInt(reference + 4);
+            if (start == -1) {
+                return;
+            }
+            if (start < 0 || length < 0 || (long) start + length > textLength) {
+                throw new ParsingException("Corrupt caption archive, string at " + reference + " is out of bounds");
+            }
+        }
+
+        private String string(int reference) {
+            int start = buffer.getInt(reference);
+            if (start < 0) {
+                return null;
+            }
+            return MappedCueParser.decode(buffer, text + start, text + start + buffer.getInt(reference + 4));
+        }
+
+    }
+
+    /**
+     * Collects tracks and writes them as an archive. Every track is encoded when it is added, so the
+     * TimedTextObject can be dropped afterwards.
+     */
+    public static class Builder {
+
+        private final ArrayList<byte[]> tracks = new ArrayList<>();
+
+        /**
+         * @param name name to find the track by, such as its language
+         * @param tto  the parsed track
+         * @return this builder
+         */
+        public Builder addTrack(String name, TimedTextObject tto) {
+            tracks.add(encode(name, tto));
+            return this;
+        }
+
+        /**
+         * @param out destination of the archive, it is not flushed nor closed by this method
+         * @throws java.io.IOException when having trouble writing
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            int header = 12 + 4 * tracks.size();
+            ByteBuffer start = ByteBuffer.allocate(header);
+            start.put(MAGIC).putInt(VERSION).putInt(tracks.size());
+            long offset = header;
+            for (byte[] track : tracks) {
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Caption archive larger than 2 GB");
+                }
+                start.putInt((int) offset);
+                offset += track.length;
+            }
+            out.write(start.array());
+            for (byte[] track : tracks) {
+                out.write(track);
+            }
+        }
+
+        private static byte[] encode(String name, TimedTextObject tto) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+
+            //every style once, also the ones captions use without them being in styling
+            StyleTable styles = new StyleTable(tto);
+
+            int size = tto.captions.size();
+            ByteBuffer track = ByteBuffer.allocate(TRACK_HEADER + styles.size() * STYLE_SIZE + size * CAPTION_SIZE);
+            track.putInt(size).putInt(styles.size()).putInt(StyleTable.flags(tto)).putInt(tto.offset).putInt(0);
+            putString(track, text, name);
+            putString(track, text, tto.title);
+            putString(track, text, tto.description);
+            putString(track, text, tto.copyright);
+            putString(track, text, tto.author);
+            putString(track, text, tto.fileName);
+            putString(track, text, tto.language);
+            for (int i = 0; i < styles.size(); i++) {
+                Style style = styles.get(i);
+                putString(track, text, style.id);
+                putString(track, text, style.font);
+                putString(track, text, style.fontSize);
+                putString(track, text, style.color);
+                putString(track, text, style.backgroundColor);
+                putString(track, text, style.textAlign);
+                track.putInt(styles.flags(i));
+            }
+
+            //the captions come sorted by start time
+            int maxEnd = Integer.MIN_VALUE;
+            for (Caption caption : tto.captions) {
+                int start = caption.start.getMilliseconds();
+                int end = caption.end.getMilliseconds();
+                maxEnd = Math.max(maxEnd, end);
+                track.putInt(start).putInt(end).putInt(styles.indexOf(caption.style));
+                String content = caption.getContent();
+                if (content == null) {
+                    track.putInt(~text.size());
+                } else {
+                    track.putInt(text.size());
+                    byte[] bytes = content.getBytes(UTF_8);
+                    text.write(bytes, 0, bytes.length);
+                }
+                track.putInt(maxEnd);
+            }
+            track.putInt(16, text.size());
+
+            byte[] result = new byte[track.capacity() + text.size()];
+            System.arraycopy(track.array(), 0, result, 0, track.capacity());
+            System.arraycopy(text.toByteArray(), 0, result, track.capacity(), text.size());
+            return result;
+        }
+
+        private static void putString(ByteBuffer track, ByteArrayOutputStream text, String value) {
+            if (value == null) {
+                track.putInt(-1).putInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            track.putInt(text.size()).putInt(bytes.length);
+            text.write(bytes, 0, bytes.length);
+        }
+
+    }
+
+    private static final class ArchivedText extends LazyContent {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        ArchivedText(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        String decode() {
+            return MappedCueParser.decode(buffer, start, end);
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+/**
+ * Receives the contents of a subtitle file as it is being parsed, in the order they are found.
+ * Implementations can filter or re-emit captions without the whole file being materialized,
+ * {@link TimedTextObjectBuilder} is the implementation used to build a {@link TimedTextObject}.
+ */
+public interface CaptionHandler {
+
+    String TITLE = "title";
+    String AUTHOR = "author";
+    String COPYRIGHT = "copyright";
+    String DESCRIPTION = "description";
+
+    /**
+     * Called for every piece of metadata found in the file.
+     *
+     * @param name  one of {@link #TITLE}, {@link #AUTHOR}, {@link #COPYRIGHT} or {@link #DESCRIPTION}
+     * @param value the value found in the file
+     */
+    void onMetadata(String name, String value);
+
+    /**
+     * Called for every style, always before the first caption that references it.
+     *
+     * @param style the parsed style
+     */
+    void onStyle(Style style);
+
+    /**
+     * Called for every caption, in the order they appear in the file.
+     *
+     * @param caption the parsed caption
+     */
+    void onCaption(Caption caption);
+
+    /**
+     * Called for every non fatal error found while parsing.
+     *
+     * @param code         kind of problem
+     * @param line         line of the file it was found at, or 0 when not known
+     * @param captionIndex index of the caption it affects, counting the captions reported so far,
+     *                     or -1 when it doesn't belong to a caption
+     * @param detail       the offending value, or null
+     */
+    void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail);
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Interval index over the captions of a {@link CaptionStore}, to find the captions that are visible at a
+ * given time, overlapping captions included. Next to the start times, which the store keeps sorted, the
+ * index keeps the highest end time seen up to every position, so all captions that may still be visible
+ * are found with two binary searches.
+ * <br><br>
+ * A caption is visible from its start time up to, but not including, its end time.
+ */
+public class CaptionIndex {
+
+    private final CaptionStore store;
+    // maxEnd[i] is the highest end time of the captions 0 to i
+    private final int[] maxEnd;
+
+    public CaptionIndex(CaptionStore store) {
+        this.store = store;
+        maxEnd = new int[store.size()];
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < maxEnd.length; i++) {
+            max = Math.max(max, store.getEnd(i));
+            maxEnd[i] = max;
+        }
+    }
+
+    /**
+     * @param tto the object to index
+     * @return an index over a {@link CaptionStore} copy of the captions of the given object
+     */
+    public static CaptionIndex of(TimedTextObject tto) {
+        return new CaptionIndex(CaptionStore.from(tto));
+    }
+
+    /**
+     * @return the store this index was built on, the positions returned by the index refer to it
+     */
+    public CaptionStore getStore() {
+        return store;
+    }
+
+    /**
+     * @param milliseconds time to look at
+     * @return the captions visible at the given time, in order of start time
+     */
+    public List<Caption> getActiveAt(int milliseconds) {
+        //no caption ends after the last millisecond, so there is nothing to find there
+        return getInRange(milliseconds, milliseconds == Integer.MAX_VALUE ? milliseconds : milliseconds + 1);
+    }
+
+    /**
+     * @param fromMs start of the range, included
+     * @param toMs   end of the range, not included
+     * @return the captions visible at any moment of the given range, in order of start time
+     */
+    public List<Caption> getInRange(int fromMs, int toMs) {
+        ArrayList<Caption> captions = new ArrayList<>();
+        int last = store.ceilingIndex(toMs) - 1;
+        for (int i = firstEndingAfter(fromMs); i <= last; i++) {
+            if (store.getEnd(i) > fromMs) {
+                captions.add(store.getCaption(i));
+            }
+        }
+        return captions;
+    }
+
+    /**
+     * @return a new cursor, positioned before the first caption
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * @return the first position from which a caption may still be visible after the given time
+     */
+    private int firstEndingAfter(int milliseconds) {
+        int low = 0;
+        int high = maxEnd.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnd[mid] <= milliseconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Keeps track of the visible captions while the time moves forward, as it does during playback.
+     * Every caption is added to and removed from the visible set once, so moving forward costs amortized
+     * O(1) per call. Moving backwards is answered from the index.
+     * <br><br>
+     * A cursor is not thread-safe, every player should use its own.
+     */
+    public class Cursor {
+
+        private int time = Integer.MIN_VALUE;
+        // the first caption that had not started yet at the current time
+        private int next;
+        // positions of the visible captions, in order of start time
+        private int[] active = new int[8];
+        private int activeCount;
+
+        /**
+         * Moves the cursor to the given time.
+         *
+         * @param milliseconds the new time
+         * @return true if the set of visible captions changed
+         */
+        public boolean advanceTo(int milliseconds) {
+            if (milliseconds < time) {
+                seek(milliseconds);
+                return true;
+            }
+            time = milliseconds;
+
+            boolean changed = false;
+            //captions that have ended are dropped
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (store.getEnd(active[i]) > milliseconds) {
+                    active[kept++] = active[i];
+                } else {
+                    changed = true;
+                }
+            }
+            activeCount = kept;
+
+            //captions that have started are added, those that already ended are skipped
+            while (next < store.size() && store.getStart(next) <= milliseconds) {
+                if (store.getEnd(next) > milliseconds) {
+                    add(next);
+                    changed = true;
+                }
+                next++;
+            }
+            return changed;
+        }
+
+        /**
+         * @return the number of captions visible at the current time
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * @param i number of the visible caption, from 0 to {@link #getActiveCount()}
+         * @return its position in the store
+         */
+        public int getActiveIndex(int i) {
+            if (i < 0 || i >= activeCount) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + activeCount);
+            }
+            return active[i];
+        }
+
+        /**
+         * @return the captions visible at the current time, in order of start time
+         */
+        public List<Caption> getActive() {
+            ArrayList<Caption> captions = new ArrayList<>(activeCount);
+            for (int i = 0; i < activeCount; i++) {
+                captions.add(store.getCaption(active[i]));
+            }
+            return captions;
+        }
+
+        private void seek(int milliseconds) {
+            time = milliseconds;
+            activeCount = 0;
+            next = store.floorIndex(milliseconds) + 1;
+            for (int i = firstEndingAfter(milliseconds); i < next; i++) {
+                if (store.getEnd(i) > milliseconds) {
+                    add(i);
+                }
+            }
+        }
+
+        private void add(int index) {
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount++] = index;
+        }
+
+    }
+
+}
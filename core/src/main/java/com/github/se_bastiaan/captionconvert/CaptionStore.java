@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, read only store of captions, sorted by start time. Instead of a {@link Caption} with two
+ * {@link Time} objects and a String per cue, the times and style of every caption are kept in int arrays
+ * and all texts are packed into a single char[], the Caption objects are only created when asked for.
+ * <br><br>
+ * A store can be copied from a {@link TimedTextObject} with {@link #from(TimedTextObject)}, or filled
+ * directly while parsing by passing a {@link Builder} to
+ * {@link TimedTextFileFormat#parse(String, java.io.Reader, CaptionHandler)}.
+ */
+public class CaptionStore implements Iterable<Caption> {
+
+    private final int size;
+    private final int[] start;
+    private final int[] end;
+    // index into styles, -1 when the caption has no style
+    private final int[] styleIndex;
+    private final Style[] styles;
+    // the text of caption i goes from textOffset[i] to textOffset[i + 1], a null text is marked
+    // by keeping the complement (~start) of its start
+    private final int[] textOffset;
+    private final char[] text;
+
+    private CaptionStore(int size, int[] start, int[] end, int[] styleIndex, Style[] styles, int[] textOffset, char[] text) {
+        this.size = size;
+        this.start = start;
+        this.end = end;
+        this.styleIndex = styleIndex;
+        this.styles = styles;
+        this.textOffset = textOffset;
+        this.text = text;
+    }
+
+    /**
+     * Copies the captions of the given object into a new store.
+     *
+     * @param tto the object to copy
+     * @return a store holding the same captions, in the same order
+     */
+    public static CaptionStore from(TimedTextObject tto) {
+        Builder builder = new Builder(tto.captions.size());
+        for (Style style : tto.styling.values()) {
+            builder.onStyle(style);
+        }
+        for (Caption caption : tto.captions.values()) {
+            builder.onCaption(caption);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the number of captions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index position of the caption, in order of start time
+     * @return the start time of the caption in milliseconds
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return start[index];
+    }
+
+    /**
+     * @param index position of the caption, in order of start time
+     * @return the end time of the caption in milliseconds
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return end[index];
+    }
+
+    /**
+     * @param index position of the caption, in order of start time
+     * @return the style of the caption, or null if it has none
+     */
+    public Style getStyle(int index) {
+        checkIndex(index);
+        int style = styleIndex[index];
+        return style < 0 ? null : styles[style];
+    }
+
+    /**
+     * @param index position of the caption, in order of start time
+     * @return the text of the caption, in the same form as {@link Caption#content}, null if it has none
+     */
+    public String getContent(int index) {
+        checkIndex(index);
+        if (textOffset[index] < 0) {
+            return null;
+        }
+        return new String(text, textOffset[index], offset(textOffset[index + 1]) - textOffset[index]);
+    }
+
+    /**
+     * Creates a Caption holding a copy of the data of the caption at the given position, changes to it
+     * are not reflected in this store.
+     *
+     * @param index position of the caption, in order of start time
+     * @return a new Caption
+     */
+    public Caption getCaption(int index) {
+        Caption caption = new Caption();
+        caption.start = new Time(getStart(index));
+        caption.end = new Time(end[index]);
+        caption.style = getStyle(index);
+        caption.content = getContent(index);
+        return caption;
+    }
+
+    /**
+     * Binary search for the first caption starting at or after the given time.
+     *
+     * @param milliseconds time to search for
+     * @return position of that caption, or {@link #size()} if all captions start before the given time
+     */
+    public int ceilingIndex(int milliseconds) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start[mid] < milliseconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the last caption starting at or before the given time.
+     *
+     * @param milliseconds time to search for
+     * @return position of that caption, or -1 if all captions start after the given time
+     */
+    public int floorIndex(int milliseconds) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start[mid] <= milliseconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * @return an iterator creating a Caption for every caption in the store, see {@link #getCaption(int)}
+     */
+    @Override
+    public Iterator<Caption> iterator() {
+        return new Iterator<Caption>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Caption next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return getCaption(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    // a text offset without the mark of a null text
+    private static int offset(int value) {
+        return value < 0 ? ~value : value;
+    }
+
+    /**
+     * {@link CaptionHandler} that fills a CaptionStore. Captions may be received in any order, they are sorted
+     * by start time when the store is built, keeping the order in which they were received for equal start times.
+     * Metadata and warnings are ignored.
+     */
+    public static class Builder implements CaptionHandler {
+
+        private int size;
+        private int[] start;
+        private int[] end;
+        private int[] styleIndex;
+        private int[] textOffset;
+        private char[] text;
+        private int textLength;
+        private boolean sorted = true;
+
+        private Style[] styles = new Style[4];
+        private int styleCount;
+        private final HashMap<String, Integer> styleIds = new HashMap<>();
+
+        public Builder() {
+            this(64);
+        }
+
+        /**
+         * @param expectedSize number of captions to reserve space for
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            start = new int[capacity];
+            end = new int[capacity];
+            styleIndex = new int[capacity];
+            textOffset = new int[capacity + 1];
+            text = new char[capacity * 32];
+        }
+
+        @Override
+        public void onMetadata(String name, String value) {
+        }
+
+        @Override
+        public void onStyle(Style style) {
+            Integer index = styleIds.get(style.id);
+            if (index != null) {
+                styles[index] = style;
+            } else {
+                addStyle(style);
+            }
+        }
+
+        @Override
+        public void onCaption(Caption caption) {
+            if (size == start.length) {
+                int capacity = size * 2;
+                start = Arrays.copyOf(start, capacity);
+                end = Arrays.copyOf(end, capacity);
+                styleIndex = Arrays.copyOf(styleIndex, capacity);
+                textOffset = Arrays.copyOf(textOffset, capacity + 1);
+            }
+
+            start[size] = caption.start.getMilliseconds();
+            end[size] = caption.end.getMilliseconds();
+            if (size > 0 && start[size] < start[size - 1]) {
+                sorted = false;
+            }
+
+            if (caption.style == null) {
+                styleIndex[size] = -1;
+            } else {
+                Integer index = styleIds.get(caption.style.id);
+                styleIndex[size] = index != null ? index : addStyle(caption.style);
+            }
+
+            String content = caption.getContent();
+            if (content == null) {
+                //a null text takes no room, only its start is marked
+                textOffset[size] = ~textLength;
+            } else {
+                if (textLength + content.length() > text.length) {
+                    text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + content.length()));
+                }
+                content.getChars(0, content.length(), text, textLength);
+                textLength += content.length();
+            }
+
+            size++;
+            textOffset[size] = textLength;
+        }
+
+        @Override
+        public void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail) {
+        }
+
+        /**
+         * @return a store holding all captions received so far, sorted by start time
+         */
+        public CaptionStore build() {
+            if (sorted) {
+                return new CaptionStore(size, Arrays.copyOf(start, size), Arrays.copyOf(end, size),
+                        Arrays.copyOf(styleIndex, size), Arrays.copyOf(styles, styleCount),
+                        Arrays.copyOf(textOffset, size + 1), Arrays.copyOf(text, textLength));
+            }
+
+            //the position is kept in the low bits so the sort is stable
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) start[i] << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] sortedStart = new int[size];
+            int[] sortedEnd = new int[size];
+            int[] sortedStyle = new int[size];
+            int[] sortedOffset = new int[size + 1];
+            char[] sortedText = new char[textLength];
+            int offset = 0;
+            for (int i = 0; i < size; i++) {
+                int from = (int) order[i];
+                sortedStart[i] = start[from];
+                sortedEnd[i] = end[from];
+                sortedStyle[i] = styleIndex[from];
+                int textStart = offset(textOffset[from]);
+                int length = offset(textOffset[from + 1]) - textStart;
+                System.arraycopy(text, textStart, sortedText, offset, length);
+                sortedOffset[i] = textOffset[from] < 0 ? ~offset : offset;
+                offset += length;
+                sortedOffset[i + 1] = offset;
+            }
+            return new CaptionStore(size, sortedStart, sortedEnd, sortedStyle, Arrays.copyOf(styles, styleCount),
+                    sortedOffset, sortedText);
+        }
+
+        private int addStyle(Style style) {
+            if (styleCount == styles.length) {
+                styles = Arrays.copyOf(styles, styleCount * 2);
+            }
+            styles[styleCount] = style;
+            styleIds.put(style.id, styleCount);
+            return styleCount++;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * The captions of a {@link TimedTextObject}, ordered by start time. Any number of captions may share
+ * a start time, those keep the order in which they were added. Adding a caption takes O(log n) and
+ * never changes its times.
+ * <br><br>
+ * The start time of a caption must not be changed while it is part of the collection.
+ */
+public class Captions extends AbstractCollection<Caption> {
+
+    // the start time goes in the high bits and the number of the caption in the low bits,
+    // so captions with the same start time are kept in the order they were added
+    private final TreeMap<Long, Caption> captions = new TreeMap<>();
+    private int sequence;
+
+    @Override
+    public boolean add(Caption caption) {
+        captions.put(key(caption.start.getMilliseconds(), sequence++), caption);
+        return true;
+    }
+
+    @Override
+    public Iterator<Caption> iterator() {
+        return captions.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return captions.size();
+    }
+
+    @Override
+    public void clear() {
+        captions.clear();
+    }
+
+    /**
+     * @return this collection, kept so code written against the former TreeMap keeps compiling
+     */
+    public Collection<Caption> values() {
+        return this;
+    }
+
+    /**
+     * @param fromMs start of the range, included
+     * @param toMs   end of the range, not included
+     * @return a live view of the captions starting within the given range, in order
+     */
+    public Collection<Caption> startingBetween(int fromMs, int toMs) {
+        if (fromMs >= toMs) {
+            return captions.subMap(0L, 0L).values();
+        }
+        return captions.subMap(key(fromMs, 0), key(toMs, 0)).values();
+    }
+
+    private static long key(int milliseconds, int sequence) {
+        return ((long) milliseconds << 32) | (sequence & 0xffffffffL);
+    }
+
+}
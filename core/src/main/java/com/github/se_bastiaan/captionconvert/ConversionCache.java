@@ -0,0 +1,446 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the results of conversions, so converting the same file again is a lookup. Results are found
+ * by a SHA-256 hash of the input bytes together with both formats and the options, and the file name
+ * when the output contains it, which makes any two identical requests share a result no matter where
+ * the bytes came from.
+ * <br><br>
+ * Results are kept in memory up to a number of bytes, the least recently used ones are dropped first.
+ * Optionally they are also written to a directory, again up to a number of bytes, where they are found
+ * when they were dropped from memory or after a restart. When several threads ask for the same
+ * conversion at once only one of them converts, the others wait for its result.
+ * <br><br>
+ * Warnings found while converting are not kept, use a {@link Transcoder} directly to get them.
+ */
+public class ConversionCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".cache";
+    //results are written to a temporary file named after their key first, ending in this
+    private static final String TEMP = SUFFIX + ".tmp";
+    //a temporary file this old was left behind by a process that stopped while writing it, younger
+    //ones may still be written by another cache using the same directory
+    private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int KEY_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long maxBytes;
+    //access ordered, so the first entry is the least recently used one
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private final File directory;
+    private final long maxDiskBytes;
+    //file sizes, ordered like memory
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final ConcurrentHashMap<String, FutureTask<String>> running = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes memory the results may take, estimated as two bytes per character
+     */
+    public ConversionCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.directory = null;
+        this.maxDiskBytes = 0;
+    }
+
+    /**
+     * Creates a cache that also writes its results to the given directory. Results written there
+     * before, by an earlier cache using the same directory, are found as well.
+     *
+     * @param maxBytes     memory the results may take, estimated as two bytes per character
+     * @param directory    directory to keep results in, it is created if it doesn't exist
+     * @param maxDiskBytes size the files in the directory may take
+     * @throws java.io.IOException when the directory can't be created
+     */
+    public ConversionCache(long maxBytes, File directory, long maxDiskBytes) throws IOException {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create cache directory " + directory);
+        }
+        loadDirectory();
+    }
+
+    /**
+     * Converts a file, or returns the result of an earlier conversion of the same bytes.
+     *
+     * @param fileName name of the file, it becomes the title of formats such as ASS
+     * @param input    the UTF-8 encoded file
+     * @param from     format of the file
+     * @param to       format to convert to
+     * @return the converted file
+     * @throws java.io.IOException when having trouble converting, or when interrupted while waiting
+     * for another thread doing the same conversion
+     * @throws ParsingException when parsing failed
+     */
+    public String convert(String fileName, byte[] input, TimedTextFileFormat from, TimedTextFileFormat to) throws IOException, ParsingException {
+        return convert(fileName, input, from, to, 0, true);
+    }
+
+    /**
+     * Converts a file with the given options, see {@link #convert(String, byte[], TimedTextFileFormat, TimedTextFileFormat)}.
+     *
+     * @param offset             milliseconds added to every time, see {@link TimedTextObject#offset}
+     * @param useASSInsteadOfSSA whether ASS is written as ASS or SSA, see {@link TimedTextObject#useASSInsteadOfSSA}
+     */
+    public String convert(final String fileName, final byte[] input, final TimedTextFileFormat from, final TimedTextFileFormat to,
+                          final int offset, final boolean useASSInsteadOfSSA) throws IOException, ParsingException {
+        final String key = key(fileName, input, from, to, offset, useASSInsteadOfSSA);
+        String result = getFromMemory(key);
+        if (result != null) {
+            hits.incrementAndGet();
+            return result;
+        }
+
+        FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                //it may have been added while this task was being set up
+                String result = getFromMemory(key);
+                if (result != null) {
+                    hits.incrementAndGet();
+                    return result;
+                }
+                result = readFromDisk(key);
+                if (result != null) {
+                    diskHits.incrementAndGet();
+                } else {
+                    misses.incrementAndGet();
+                    result = convert(fileName, input, from, to, Retiming.offset(offset), useASSInsteadOfSSA);
+                    writeToDisk(key, result);
+                }
+                putInMemory(key, result);
+                return result;
+            }
+        });
+        FutureTask<String> other = running.putIfAbsent(key, task);
+        if (other == null) {
+            try {
+                task.run();
+            } finally {
+                running.remove(key, task);
+            }
+        } else {
+            coalesced.incrementAndGet();
+            task = other;
+        }
+        return get(task);
+    }
+
+    /**
+     * @return number of conversions answered from memory
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of conversions answered from the directory
+     */
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    /**
+     * @return number of conversions that had to be done
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of conversions that waited for the same conversion in another thread
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return number of results dropped from memory or the directory to make room
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return estimated memory taken by the results, in bytes
+     */
+    public synchronized long getSize() {
+        return memoryBytes;
+    }
+
+    /**
+     * Drops all results from memory, the directory is left alone.
+     */
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+    }
+
+    private static String convert(String fileName, byte[] input, TimedTextFileFormat from, TimedTextFileFormat to,
+                                  Retiming retiming, boolean useASSInsteadOfSSA) throws IOException, ParsingException {
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(input), UTF_8);
+        StringBuilder sb = new StringBuilder(input.length + input.length / 4);
+        if (useASSInsteadOfSSA) {
+            Transcoder.forFormats(from, to).transcode(fileName, reader, sb, retiming, new Diagnostics(Diagnostics.Level.OFF));
+        } else {
+            //the flag lives on the TimedTextObject, which only the generic path has
+            TimedTextObject tto = from.parseFile(fileName, reader, new Diagnostics(Diagnostics.Level.OFF));
+            tto.useASSInsteadOfSSA = false;
+            to.write(tto, retiming, sb);
+        }
+        return sb.toString();
+    }
+
+    private static String key(String fileName, byte[] input, TimedTextFileFormat from, TimedTextFileFormat to,
+                              int offset, boolean useASSInsteadOfSSA) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //every Java and Android platform has it
+            throw new IllegalStateException(e);
+        }
+        digest.update(input);
+        //the options are separated by a character that can't be part of them
+        String options = "\u0000" + from.getClass().getName() + "\u0000" + to.getClass().getName() + "\u0000" + offset
+                + "\u0000" + useASSInsteadOfSSA;
+        //only ASS and TTML write the file name, the same subtitles under another name share a result otherwise
+        if (to instanceof FormatASS || to instanceof FormatTTML) {
+            options += "\u0000" + fileName;
+        }
+        digest.update(options.getBytes(UTF_8));
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static String get(FutureTask<String> task) throws IOException, ParsingException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for the same conversion");
+            interrupted.initCause(e);
+            throw interrupted;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ParsingException) {
+                throw (ParsingException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private synchronized String getFromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void putInMemory(String key, String result) {
+        long size = size(result);
+        if (size > maxBytes) {
+            //it would push out everything else and still not fit
+            return;
+        }
+        String previous = memory.put(key, result);
+        if (previous != null) {
+            memoryBytes -= size(previous);
+        }
+        memoryBytes += size;
+        Iterator<Map.Entry<String, String>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxBytes && it.hasNext()) {
+            memoryBytes -= size(it.next().getValue());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long size(String result) {
+        //the characters plus a rough guess of the String, key and map entry around them
+        return 2L * result.length() + 200;
+    }
+
+    private void loadDirectory() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        //oldest first, the order they would have been added in
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long difference = a.lastModified() - b.lastModified();
+                return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+            }
+        });
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isFile() && name.endsWith(SUFFIX)) {
+                    long length = file.length();
+                    disk.put(name.substring(0, name.length() - SUFFIX.length()), length);
+                    diskBytes += length;
+                } else if (file.isFile() && isTempFile(name) && now - file.lastModified() > STALE_TEMP_MILLIS) {
+                    file.delete();
+                }
+            }
+            evictFromDisk();
+        }
+    }
+
+    private String readFromDisk(String key) throws IOException {
+        if (directory == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+        InputStream is;
+        try {
+            is = new FileInputStream(new File(directory, key + SUFFIX));
+        } catch (IOException e) {
+            //removed by someone else, convert it again
+            return null;
+        }
+        try {
+            Reader reader = new InputStreamReader(is, UTF_8);
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                sb.append(buffer, 0, read);
+            }
+            return sb.toString();
+        } finally {
+            is.close();
+        }
+    }
+
+    private void writeToDisk(String key, String result) {
+        if (directory == null) {
+            return;
+        }
+        //written under another name first, so a half written file is never found
+        File temp = null;
+        File file = new File(directory, key + SUFFIX);
+        try {
+            temp = File.createTempFile(key, TEMP, directory);
+            Writer out = new OutputStreamWriter(new FileOutputStream(temp), UTF_8);
+            try {
+                out.write(result);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Can't rename " + temp);
+            }
+        } catch (IOException e) {
+            //the directory is only a cache, the conversion itself succeeded
+            if (temp != null) {
+                temp.delete();
+            }
+            return;
+        }
+        synchronized (this) {
+            Long previous = disk.put(key, file.length());
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskBytes += file.length();
+            evictFromDisk();
+        }
+    }
+
+    //whether the file is a temporary file made by writeToDisk: the key, a number and TEMP
+    private static boolean isTempFile(String name) {
+        if (!name.endsWith(TEMP) || name.length() <= KEY_LENGTH + TEMP.length()) {
+            return false;
+        }
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            char c = name.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //called holding the lock
+    private void evictFromDisk() {
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            diskBytes -= entry.getValue();
+            it.remove();
+            evictions.incrementAndGet();
+            new File(directory, entry.getKey() + SUFFIX).delete();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+/**
+ * A non fatal error found while parsing a subtitle file.
+ */
+public class Diagnostic {
+
+    public enum Code {
+        CAPTION_NUMBER_EXPECTED("caption number expected, skipping to next line"),
+        INVALID_TIME_FORMAT("incorrect time format"),
+        UNEXPECTED_END_OF_FILE("unexpected end of file, maybe last caption is not complete"),
+        OLD_SCRIPT_VERSION("Script version is older than 4.00, it may produce parsing errors"),
+        SCRIPT_TYPE_MISMATCH("ScriptType should be set to v4:00+ in the [Script Info] section"),
+        FORMAT_EXPECTED("Format: (format definition) expected"),
+        EVENTS_IGNORED("Only dialogue events are considered, all other events are ignored"),
+        UNSUPPORTED_SECTION("section is not supported for conversion, all information there will be lost"),
+        UNRECOGNIZED_SECTION("unrecognized section, all information there is ignored"),
+        MALFORMED_STYLE("incorrectly formated style line"),
+        UNDEFINED_ALIGNMENT("undefined alignment for style"),
+        UNDEFINED_STYLE("undefined style"),
+        INLINE_STYLING_IGNORED("Styling attributes are only recognized inside a style definition, to be referenced later in the captions"),
+        UNRECOGNIZED_COLOR("unrecognized color"),
+        CAPTION_OUT_OF_ORDER("caption starts before one that was already written, it is kept in the order of the file");
+
+        private final String message;
+
+        Code(String message) {
+            this.message = message;
+        }
+
+        /**
+         * @return description of this kind of problem
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Kind of problem
+     */
+    public final Code code;
+
+    /**
+     * Line of the file it was found at, starting at 1, or 0 when not known
+     */
+    public final int line;
+
+    /**
+     * Index of the caption it affects, counting the captions reported so far, or -1 when it
+     * doesn't belong to a caption
+     */
+    public final int captionIndex;
+
+    /**
+     * The offending value, or null
+     */
+    public final String detail;
+
+    public Diagnostic(Code code, int line, int captionIndex, String detail) {
+        this.code = code;
+        this.line = line;
+        this.captionIndex = captionIndex;
+        this.detail = detail;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(code.getMessage());
+        if (detail != null) {
+            sb.append(": ").append(detail);
+        }
+        if (line > 0) {
+            sb.append(" (line ").append(line).append(')');
+        } else if (captionIndex >= 0) {
+            sb.append(" (caption ").append(captionIndex).append(')');
+        }
+        return sb.toString();
+    }
+
+}
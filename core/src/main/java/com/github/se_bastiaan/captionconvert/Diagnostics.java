@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the non fatal errors found while parsing. How much is kept depends on the level: nothing
+ * at all, only the number of warnings per code, the first few warnings or every single one of them.
+ * A {@link Diagnostic} is only created for warnings that are actually kept.
+ */
+public class Diagnostics {
+
+    public enum Level {
+        OFF, COUNT_ONLY, FIRST_N, ALL
+    }
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    public final Level level;
+    public final int limit;
+
+    private final int[] counts;
+    private final List<Diagnostic> entries;
+    private int total;
+
+    /**
+     * @param level how much to keep, FIRST_N keeps the first {@link #DEFAULT_LIMIT} warnings
+     */
+    public Diagnostics(Level level) {
+        this(level, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @param level how much to keep
+     * @param limit the number of warnings kept when the level is FIRST_N
+     */
+    public Diagnostics(Level level, int limit) {
+        this.level = level;
+        this.limit = level == Level.FIRST_N ? limit : level == Level.ALL ? Integer.MAX_VALUE : 0;
+        counts = new int[Diagnostic.Code.values().length];
+        entries = new ArrayList<>();
+    }
+
+    /**
+     * Records a warning.
+     *
+     * @param code         kind of problem
+     * @param line         line of the file it was found at, or 0 when not known
+     * @param captionIndex index of the caption it affects, or -1
+     * @param detail       the offending value, or null
+     */
+    public void report(Diagnostic.Code code, int line, int captionIndex, String detail) {
+        if (level == Level.OFF) {
+            return;
+        }
+        counts[code.ordinal()]++;
+        total++;
+        if (entries.size() < limit) {
+            entries.add(new Diagnostic(code, line, captionIndex, detail));
+        }
+    }
+
+    /**
+     * @return the number of warnings reported, including the ones that weren't kept
+     */
+    public int getCount() {
+        return total;
+    }
+
+    /**
+     * @param code kind of problem
+     * @return the number of warnings reported with the given code
+     */
+    public int getCount(Diagnostic.Code code) {
+        return counts[code.ordinal()];
+    }
+
+    /**
+     * @return the number of warnings reported for every code that occurred at least once
+     */
+    public Map<Diagnostic.Code, Integer> getCounts() {
+        Map<Diagnostic.Code, Integer> map = new EnumMap<>(Diagnostic.Code.class);
+        for (Diagnostic.Code code : Diagnostic.Code.values()) {
+            if (counts[code.ordinal()] > 0) {
+                map.put(code, counts[code.ordinal()]);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return the warnings that were kept, in the order they were reported
+     */
+    public List<Diagnostic> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return true if more warnings were reported than kept
+     */
+    public boolean isTruncated() {
+        return total > entries.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Diagnostic diagnostic : entries) {
+            sb.append(diagnostic).append('\n');
+        }
+        if (total > entries.size()) {
+            sb.append(total - entries.size()).append(" more\n");
+        }
+        return sb.toString();
+    }
+
+}
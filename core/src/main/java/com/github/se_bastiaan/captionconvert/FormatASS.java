@@ -17,7 +17,8 @@
 package com.github.se_bastiaan.captionconvert;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
 
 /**
  * Class that represents the .ASS and .SSA subtitle file format
@@ -46,13 +47,14 @@ import java.util.ArrayList;
  */
 public class FormatASS extends TimedTextFileFormat {
 
-    public TimedTextObject parseFile(String fileName, String[] inputString) throws IOException {
-        TimedTextObject tto = new TimedTextObject();
-        tto.fileName = fileName;
-
+    public void parse(String fileName, LineReader lines, CaptionHandler handler) throws IOException {
         Caption caption;
         Style style;
 
+        //styles are only handed to the handler once a caption uses them, so unused styles are left out
+        Hashtable<String, Style> styling = new Hashtable<>();
+        HashSet<String> usedStyles = new HashSet<>();
+
         //for the clock timer
         float timer = 100;
 
@@ -65,301 +67,322 @@ public class FormatASS extends TimedTextFileFormat {
 
         String line;
         int lineCounter = 0;
-        int stringIndex = 0;
-        try {
-            //we scour the file
-            line = getLine(inputString, stringIndex++);
-            lineCounter++;
-            while (line != null && stringIndex < inputString.length) {
-                line = line.trim();
-                //we skip any line until we find a section [section name]
-                if (line.startsWith("[")) {
-                    //now we must identify the section
-                    if (line.equalsIgnoreCase("[Script info]")) {
-                        //its the script info section section
-                        lineCounter++;
-                        line = getLine(inputString, stringIndex++).trim();
-                        //Each line is scanned for useful info until a new section is detected
-                        while (!line.startsWith("[")) {
-                            if (line.startsWith("Title:")) {
-                                //We have found the title
-                                tto.title = line.split(":")[1].trim();
-                            } else if (line.startsWith("Original Script:")) {
-                                //We have found the author
-                                tto.author = line.split(":")[1].trim();
-                            } else if (line.startsWith("Script Type:")) {
-                                //we have found the version
-                                if (line.split(":")[1].trim().equalsIgnoreCase("v4.00+")) {
-                                    isASS = true;
-                                    //we check the type to set isASS or to warn if it comes from an older version than the studied specs
-                                } else if (!line.split(":")[1].trim().equalsIgnoreCase("v4.00")) {
-                                    tto.warnings += "Script version is older than 4.00, it may produce parsing errors.";
-                                }
-                            } else if (line.startsWith("Timer:")) {
-                                //We have found the timer
-                                timer = Float.parseFloat(line.split(":")[1].trim().replace(',', '.'));
+        int captionIndex = 0;
+        //we scour the file
+        line = lines.next();
+        if (line == null) {
+            return;
+        }
+        lineCounter++;
+        scan:
+        while (lines.hasNext()) {
+            line = line.trim();
+            //we skip any line until we find a section [section name]
+            if (line.startsWith("[")) {
+                //now we must identify the section
+                if (line.equalsIgnoreCase("[Script info]")) {
+                    //its the script info section section
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
+                    //Each line is scanned for useful info until a new section is detected
+                    while (!line.startsWith("[")) {
+                        if (line.startsWith("Title:")) {
+                            //We have found the title
+                            handler.onMetadata(CaptionHandler.TITLE, line.split(":")[1].trim());
+                        } else if (line.startsWith("Original Script:")) {
+                            //We have found the author
+                            handler.onMetadata(CaptionHandler.AUTHOR, line.split(":")[1].trim());
+                        } else if (line.startsWith("Script Type:")) {
+                            //we have found the version
+                            if (line.split(":")[1].trim().equalsIgnoreCase("v4.00+")) {
+                                isASS = true;
+                                //we check the type to set isASS or to warn if it comes from an older version than the studied specs
+                            } else if (!line.split(":")[1].trim().equalsIgnoreCase("v4.00")) {
+                                handler.onWarning(Diagnostic.Code.OLD_SCRIPT_VERSION, lineCounter, -1, null);
                             }
-                            //we go to the next line
-                            lineCounter++;
-                            line = getLine(inputString, stringIndex++).trim();
-                        }
-
-                    } else if (line.equalsIgnoreCase("[v4 Styles]")
-                            || line.equalsIgnoreCase("[v4 Styles+]")
-                            || line.equalsIgnoreCase("[v4+ Styles]")) {
-                        //its the Styles description section
-                        if (line.contains("+") && !isASS) {
-                            //its ASS and it had not been noted
-                            isASS = true;
-                            tto.warnings += "ScriptType should be set to v4:00+ in the [Script Info] section.\n\n";
+                        } else if (line.startsWith("Timer:")) {
+                            //We have found the timer
+                            timer = Float.parseFloat(line.split(":")[1].trim().replace(',', '.'));
                         }
+                        //we go to the next line
                         lineCounter++;
-                        line = getLine(inputString, stringIndex++).trim();
-                        //the first line should define the format
-                        if (!line.startsWith("Format:")) {
-                            //if not, we scan for the format.
-                            tto.warnings += "Format: (format definition) expected at line " + line + " for the styles section\n\n";
-                            while (!line.startsWith("Format:")) {
-                                lineCounter++;
-                                line = getLine(inputString, stringIndex++).trim();
+                        line = nextTrimmed(lines);
+                        if (line == null) {
+                            break scan;
+                        }
+                    }
+
+                } else if (line.equalsIgnoreCase("[v4 Styles]")
+                        || line.equalsIgnoreCase("[v4 Styles+]")
+                        || line.equalsIgnoreCase("[v4+ Styles]")) {
+                    //its the Styles description section
+                    if (line.contains("+") && !isASS) {
+                        //its ASS and it had not been noted
+                        isASS = true;
+                        handler.onWarning(Diagnostic.Code.SCRIPT_TYPE_MISMATCH, lineCounter, -1, null);
+                    }
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
+                    //the first line should define the format
+                    if (!line.startsWith("Format:")) {
+                        //if not, we scan for the format.
+                        handler.onWarning(Diagnostic.Code.FORMAT_EXPECTED, lineCounter, -1, line);
+                        while (!line.startsWith("Format:")) {
+                            lineCounter++;
+                            line = nextTrimmed(lines);
+                            if (line == null) {
+                                break scan;
                             }
                         }
-                        // we recover the format's fields
-                        styleFormat = line.split(":")[1].trim().split(",");
+                    }
+                    // we recover the format's fields
+                    styleFormat = line.split(":")[1].trim().split(",");
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
+                    // we parse each style until we reach a new section
+                    while (!line.startsWith("[")) {
+                        //we check it is a style
+                        if (line.startsWith("Style:")) {
+                            //we parse the style
+                            style = parseStyleForASS(line.split(":")[1].trim().split(","), styleFormat, lineCounter, isASS, handler);
+                            //and save the style
+                            styling.put(style.id, style);
+                        }
+                        //next line
                         lineCounter++;
-                        line = getLine(inputString, stringIndex++).trim();
-                        // we parse each style until we reach a new section
-                        while (!line.startsWith("[")) {
-                            //we check it is a style
-                            if (line.startsWith("Style:")) {
-                                //we parse the style
-                                style = parseStyleForASS(line.split(":")[1].trim().split(","), styleFormat, lineCounter, isASS, tto.warnings);
-                                //and save the style
-                                tto.styling.put(style.id, style);
-                            }
-                            //next line
-                            lineCounter++;
-                            line = getLine(inputString, stringIndex++).trim();
+                        line = nextTrimmed(lines);
+                        if (line == null) {
+                            break scan;
                         }
+                    }
 
-                    } else if (line.trim().equalsIgnoreCase("[Events]")) {
-                        //its the events specification section
-                        lineCounter++;
-                        line = getLine(inputString, stringIndex++).trim();
-                        tto.warnings += "Only dialogue events are considered, all other events are ignored.\n\n";
-                        //the first line should define the format of the dialogues
-                        if (!line.startsWith("Format:")) {
-                            //if not, we scan for the format.
-                            tto.warnings += "Format: (format definition) expected at line " + line + " for the events section\n\n";
-                            while (!line.startsWith("Format:")) {
-                                lineCounter++;
-                                line = getLine(inputString, stringIndex++).trim();
+                } else if (line.trim().equalsIgnoreCase("[Events]")) {
+                    //its the events specification section
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
+                    handler.onWarning(Diagnostic.Code.EVENTS_IGNORED, lineCounter, -1, null);
+                    //the first line should define the format of the dialogues
+                    if (!line.startsWith("Format:")) {
+                        //if not, we scan for the format.
+                        handler.onWarning(Diagnostic.Code.FORMAT_EXPECTED, lineCounter, -1, line);
+                        while (!line.startsWith("Format:")) {
+                            lineCounter++;
+                            line = nextTrimmed(lines);
+                            if (line == null) {
+                                break scan;
+                            }
+                        }
+                    }
+                    // we recover the format's fields
+                    dialogueFormat = line.split(":")[1].trim().split(",");
+                    //next line
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
+                    // we parse each style until we reach a new section
+                    while (!line.startsWith("[")) {
+                        //we check it is a dialogue
+                        //WARNING: all other events are ignored.
+                        if (line.startsWith("Dialogue:")) {
+                            //we parse the dialogue
+                            caption = parseDialogueForASS(line.split(":", 2)[1].trim().split(",", 10), dialogueFormat, timer, lineCounter, captionIndex, styling, handler);
+                            //the style goes first if this is the first caption using it
+                            if (caption.style != null && usedStyles.add(caption.style.id)) {
+                                handler.onStyle(caption.style);
                             }
+                            //and save the caption
+                            handler.onCaption(caption);
+                            captionIndex++;
                         }
-                        // we recover the format's fields
-                        dialogueFormat = line.split(":")[1].trim().split(",");
                         //next line
                         lineCounter++;
-                        line = getLine(inputString, stringIndex++).trim();
-                        // we parse each style until we reach a new section
-                        while (!line.startsWith("[")) {
-                            //we check it is a dialogue
-                            //WARNING: all other events are ignored.
-                            if (line.startsWith("Dialogue:")) {
-                                //we parse the dialogue
-                                caption = parseDialogueForASS(line.split(":", 2)[1].trim().split(",", 10), dialogueFormat, timer, tto);
-                                //and save the caption
-                                int key = caption.start.getMilliseconds();
-                                //in case the key is already there, we increase it by a millisecond, since no duplicates are allowed
-                                while (tto.captions.containsKey(key)) key++;
-                                tto.captions.put(key, caption);
-                            }
-                            //next line
-                            lineCounter++;
-                            line = getLine(inputString, stringIndex++).trim();
+                        line = nextTrimmed(lines);
+                        if (line == null) {
+                            break scan;
                         }
+                    }
 
-                    } else if (line.trim().equalsIgnoreCase("[Fonts]") || line.trim().equalsIgnoreCase("[Graphics]")) {
-                        //its the custom fonts or embedded graphics section
-                        //these are not supported
-                        tto.warnings += "The section " + line.trim() + " is not supported for conversion, all information there will be lost.\n\n";
-                        line = getLine(inputString, stringIndex++).trim();
-                    } else {
-                        tto.warnings += "Unrecognized section: " + line.trim() + " all information there is ignored.";
-                        line = getLine(inputString, stringIndex++).trim();
+                } else if (line.trim().equalsIgnoreCase("[Fonts]") || line.trim().equalsIgnoreCase("[Graphics]")) {
+                    //its the custom fonts or embedded graphics section
+                    //these are not supported
+                    handler.onWarning(Diagnostic.Code.UNSUPPORTED_SECTION, lineCounter, -1, line.trim());
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
                     }
                 } else {
-                    line = getLine(inputString, stringIndex++);
-                    lineCounter++;
+                    handler.onWarning(Diagnostic.Code.UNRECOGNIZED_SECTION, lineCounter, -1, line.trim());
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break scan;
+                    }
                 }
+            } else {
+                line = lines.next();
+                lineCounter++;
             }
-            // parsed styles that are not used should be eliminated
-            tto.cleanUnusedStyles();
-
-        } catch (NullPointerException e) {
-            tto.warnings += "unexpected end of file, maybe last caption is not complete.\n\n";
         }
-
-        tto.built = true;
-        return tto;
+        //the input ended in the middle of a section
+        if (line == null) {
+            handler.onWarning(Diagnostic.Code.UNEXPECTED_END_OF_FILE, lineCounter, captionIndex, null);
+        }
     }
 
 
     public String[] toFile(TimedTextObject tto) {
+        return writeLines(tto);
+    }
+
+    @Override
+    public boolean write(TimedTextObject tto, Retiming retiming, Appendable out) throws IOException {
         //first we check if the TimedTextObject had been built, otherwise...
         if (!tto.built) {
-            return null;
+            return false;
         }
 
-        //we will write the lines in an ArrayList 
-        int index = 0;
-        //the minimum size of the file is the number of captions and styles + lines for sections and formats and the script info, so we'll take some extra space.
-        ArrayList<String> file = new ArrayList<String>(30 + tto.styling.size() + tto.captions.size());
-
         //header is placed
-        file.add(index++, "[Script Info]");
+        out.append("[Script Info]\n");
 
         //title next
-        String title = "Title: ";
+        out.append("Title: ");
         if (tto.title == null || tto.title.isEmpty()) {
-            title += tto.fileName;
+            out.append(tto.fileName);
         } else {
-            title += tto.title;
+            out.append(tto.title);
         }
-        file.add(index++, title);
+        out.append('\n');
 
         //author next
-        String author = "Original Script: ";
+        out.append("Original Script: ");
         if (tto.author == null || tto.author.isEmpty()) {
-            author += "Unknown";
+            out.append("Unknown");
         } else {
-            author += tto.author;
+            out.append(tto.author);
         }
-        ;
-        file.add(index++, author);
+        out.append('\n');
 
         //additional info
         if (tto.copyright != null && !tto.copyright.isEmpty()) {
-            file.add(index++, "; " + tto.copyright);
+            out.append("; ").append(tto.copyright).append('\n');
         }
 
         if (tto.description != null && !tto.description.isEmpty()) {
-            file.add(index++, "; " + tto.description);
+            out.append("; ").append(tto.description).append('\n');
         }
 
-        file.add(index++, "; Converted by the Online Subtitle Converter developed by J. David Requejo");
+        out.append("; Converted by the Online Subtitle Converter developed by J. David Requejo\n");
 
         // mandatory info
         if (tto.useASSInsteadOfSSA) {
-            file.add(index++, "Script Type: V4.00+");
+            out.append("Script Type: V4.00+\n");
         } else {
-            file.add(index++, "Script Type: V4.00");
+            out.append("Script Type: V4.00\n");
         }
 
-        file.add(index++, "Collisions: Normal");
-        file.add(index++, "Timer: 100,0000");
+        out.append("Collisions: Normal\n");
+        out.append("Timer: 100,0000\n");
 
         if (tto.useASSInsteadOfSSA) {
-            file.add(index++, "WrapStyle: 1");
+            out.append("WrapStyle: 1\n");
         }
         //an empty line is added
-        file.add(index++, "");
+        out.append('\n');
 
         //Styles section
         if (tto.useASSInsteadOfSSA) {
-            file.add(index++, "[V4+ Styles]");
+            out.append("[V4+ Styles]\n");
         } else {
-            file.add(index++, "[V4 Styles]");
+            out.append("[V4 Styles]\n");
         }
 
         //Define the format
         if (tto.useASSInsteadOfSSA) {
-            file.add(index++, "Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, OutlineColour, BackColour, Bold, Italic, Underline, StrikeOut, ScaleX, ScaleY, Spacing, Angle, BorderStyle, Outline, Shadow, Alignment, MarginL, MarginR, MarginV, Encoding");
+            out.append("Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, OutlineColour, BackColour, Bold, Italic, Underline, StrikeOut, ScaleX, ScaleY, Spacing, Angle, BorderStyle, Outline, Shadow, Alignment, MarginL, MarginR, MarginV, Encoding\n");
         } else {
-            file.add(index++, "Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, TertiaryColour, BackColour, Bold, Italic, BorderStyle, Outline, Shadow, Alignment, MarginL, MarginR, MarginV, AlphaLevel, Encoding");
+            out.append("Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, TertiaryColour, BackColour, Bold, Italic, BorderStyle, Outline, Shadow, Alignment, MarginL, MarginR, MarginV, AlphaLevel, Encoding\n");
         }
 
         //Next we iterate over the styles
         for (Style style : tto.styling.values()) {
-            String styleLine = "Style: ";
+            out.append("Style: ");
             //name
-            styleLine += style.id + ",";
-            styleLine += style.font + ",";
-            styleLine += style.fontSize + ",";
-            styleLine += getColorsForASS(tto.useASSInsteadOfSSA, style);
-            styleLine += getOptionsForASS(tto.useASSInsteadOfSSA, style);
+            out.append(style.id).append(',');
+            out.append(style.font).append(',');
+            out.append(style.fontSize).append(',');
+            out.append(getColorsForASS(tto.useASSInsteadOfSSA, style));
+            out.append(getOptionsForASS(tto.useASSInsteadOfSSA, style));
             //BorderStyle, Outline, Shadow
-            styleLine += "1,2,2,";
-            styleLine += getAlignForASS(tto.useASSInsteadOfSSA, style.textAlign);
+            out.append("1,2,2,");
+            out.append(String.valueOf(getAlignForASS(tto.useASSInsteadOfSSA, style.textAlign)));
             //MarginL, MarginR, MarginV
-            styleLine += ",0,0,0,";
+            out.append(",0,0,0,");
             //AlphaLevel
             if (!tto.useASSInsteadOfSSA) {
-                styleLine += "0,";
+                out.append("0,");
             }
             //Encoding
-            styleLine += "0";
-
-            //and we add the style definition line
-            file.add(index++, styleLine);
+            out.append("0\n");
         }
 
         //an empty line is added
-        file.add(index++, "");
+        out.append('\n');
 
         //Events section
-        file.add(index++, "[Events]");
+        out.append("[Events]\n");
 
         //define the format
         if (tto.useASSInsteadOfSSA) {
-            file.add(index++, "Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text");
+            out.append("Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text\n");
         } else {
-            file.add(index++, "Format: Marked, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text");
+            out.append("Format: Marked, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text\n");
         }
 
+        //the timing fields are put together in this buffer, reused for every caption
+        char[] buffer = new char[2 * TimeFormat.MAX_LENGTH + 2];
+
         //Next we iterate over the captions
         for (Caption caption : tto.captions.values()) {
             //for each caption
-            String line = "Dialogue: 0,";
-            //offset is applied
-            if (tto.offset != 0) {
-                caption.start.setMilliseconds(caption.start.getMilliseconds() + tto.offset);
-                caption.end.setMilliseconds(caption.end.getMilliseconds() + tto.offset);
-            }
-            //start time
-            line += caption.start.getTime("h:mm:ss.cs") + ",";
-            //end time
-            line += caption.end.getTime("h:mm:ss.cs") + ",";
-            //offset is undone
-            if (tto.offset != 0) {
-                caption.start.setMilliseconds(caption.start.getMilliseconds() - tto.offset);
-                caption.end.setMilliseconds(caption.end.getMilliseconds() - tto.offset);
-            }
+            out.append("Dialogue: 0,");
+            //start and end time, with the retiming applied
+            int length = TimeFormat.ASS_CS.format(retiming.apply(caption.start.getMilliseconds()), buffer, 0);
+            buffer[length++] = ',';
+            length = TimeFormat.ASS_CS.format(retiming.apply(caption.end.getMilliseconds()), buffer, length);
+            buffer[length++] = ',';
+            append(out, buffer, length);
             //style
             if (caption.style != null) {
-                line += caption.style.id;
+                out.append(caption.style.id);
             } else {
-                line += "Default";
+                out.append("Default");
             }
 
             //default margins are used, no name or effect is recognized
-            line += ",,0000,0000,0000,,";
+            out.append(",,0000,0000,0000,,");
 
             //we add the caption text with \N as line breaks  and clean of XML
-            line += caption.content.replaceAll("<br />", "\\N").replaceAll("<.*?>", "");
-            //and we add the caption line
-            file.add(index++, line);
+            Markup.appendText(out, caption.getContent(), "\\N");
+            out.append('\n');
         }
 
         //an empty line is added
-        file.add(index, "");
+        out.append('\n');
 
-        //we return the expected file as an array of String
-        String[] toReturn = new String[file.size()];
-        for (int i = 0; i < toReturn.length; i++) {
-            toReturn[i] = file.get(i);
-        }
-        return toReturn;
+        return true;
     }
 
     /**
@@ -369,12 +392,12 @@ public class FormatASS extends TimedTextFileFormat {
      * @param styleFormat the list of attributes in this format line
      * @return a new Style object.
      */
-    private Style parseStyleForASS(String[] line, String[] styleFormat, int index, boolean isASS, String warnings) {
+    private Style parseStyleForASS(String[] line, String[] styleFormat, int index, boolean isASS, CaptionHandler handler) {
         Style newStyle = new Style(Style.defaultID());
 
         if (line.length != styleFormat.length) {
             //both should have the same size
-            warnings += "incorrectly formated line at " + index + "\n\n";
+            handler.onWarning(Diagnostic.Code.MALFORMED_STYLE, index, -1, null);
         } else {
             for (int i = 0; i < styleFormat.length; i++) {
                 //we go through every format parameter and save the interesting values
@@ -461,7 +484,7 @@ public class FormatASS extends TimedTextFileFormat {
                                 newStyle.textAlign = "top-right";
                                 break;
                             default:
-                                warnings += "undefined alignment for style at line " + index + "\n\n";
+                                handler.onWarning(Diagnostic.Code.UNDEFINED_ALIGNMENT, index, -1, line[i].trim());
                         }
                     } else {
                         switch (placement) {
@@ -493,7 +516,7 @@ public class FormatASS extends TimedTextFileFormat {
                                 newStyle.textAlign = "top-right";
                                 break;
                             default:
-                                warnings += "undefined alignment for style at line " + index + "\n\n";
+                                handler.onWarning(Diagnostic.Code.UNDEFINED_ALIGNMENT, index, -1, line[i].trim());
                         }
                     }
                 }
@@ -510,32 +533,35 @@ public class FormatASS extends TimedTextFileFormat {
      * @param line           the dialogue line without its declaration
      * @param dialogueFormat the list of attributes in this dialogue line
      * @param timer          % to speed or slow the clock, above 100% span of the subtitles is reduced.
+     * @param index          the number of the line in the file
+     * @param captionIndex   the number of captions reported before this one
+     * @param styling        the styles defined so far
      * @return a new Caption object
      */
-    private Caption parseDialogueForASS(String[] line, String[] dialogueFormat, float timer, TimedTextObject tto) {
+    private Caption parseDialogueForASS(String[] line, String[] dialogueFormat, float timer, int index, int captionIndex, Hashtable<String, Style> styling, CaptionHandler handler) {
         Caption newCaption = new Caption();
 
         //all information from fields 10 onwards are the caption text therefore needn't be split
         String captionText = line[9];
         //text is cleaned before being inserted into the caption
-        newCaption.content = captionText.replaceAll("\\{.*?\\}", "").replace("\n", "<br />").replace("\\N", "<br />");
+        newCaption.content = Markup.strip(captionText, '{', '}').replace("\n", "<br />").replace("\\N", "<br />");
 
         for (int i = 0; i < dialogueFormat.length; i++) {
             //we go through every format parameter and save the interesting values
             if (dialogueFormat[i].trim().equalsIgnoreCase("Style")) {
                 //we save the style
-                Style s = tto.styling.get(line[i].trim());
+                Style s = styling.get(line[i].trim());
                 if (s != null) {
                     newCaption.style = s;
                 } else {
-                    tto.warnings += "undefined style: " + line[i].trim() + "\n\n";
+                    handler.onWarning(Diagnostic.Code.UNDEFINED_STYLE, index, captionIndex, line[i].trim());
                 }
             } else if (dialogueFormat[i].trim().equalsIgnoreCase("Start")) {
                 //we save the starting time
-                newCaption.start = new Time("h:mm:ss.cs", line[i].trim());
+                newCaption.start = new Time(TimeFormat.ASS_CS, line[i].trim());
             } else if (dialogueFormat[i].trim().equalsIgnoreCase("End")) {
                 //we save the starting time
-                newCaption.end = new Time("h:mm:ss.cs", line[i].trim());
+                newCaption.end = new Time(TimeFormat.ASS_CS, line[i].trim());
             }
         }
 
@@ -555,13 +581,16 @@ public class FormatASS extends TimedTextFileFormat {
      */
     private String getColorsForASS(boolean useASSInsteadOfSSA, Style style) {
         String colors;
+        //styles from other formats don't always define both colors, white on black is used then
+        String primary = style.color != null ? style.color : "ffffffff";
+        String background = style.backgroundColor != null ? style.backgroundColor : "000000ff";
         if (useASSInsteadOfSSA) {
             //primary color(BBGGRR) with Alpha level (00) in front + 00FFFFFF + 00000000 + background color(BBGGRR) with Alpha level (80) in front
-            colors = Integer.parseInt("00" + style.color.substring(4, 6) + style.color.substring(2, 4) + style.color.substring(0, 2), 16) + ",16777215,0," + Long.parseLong("80" + style.backgroundColor.substring(4, 6) + style.backgroundColor.substring(2, 4) + style.backgroundColor.substring(0, 2), 16) + ",";
+            colors = Integer.parseInt("00" + primary.substring(4, 6) + primary.substring(2, 4) + primary.substring(0, 2), 16) + ",16777215,0," + Long.parseLong("80" + background.substring(4, 6) + background.substring(2, 4) + background.substring(0, 2), 16) + ",";
         } else {
             //primary color(BBGGRR) + FFFFFF + 000000 + background color(BBGGRR)
-            String color = style.color.substring(4, 6) + style.color.substring(2, 4) + style.color.substring(0, 2);
-            String bgcolor = style.backgroundColor.substring(4, 6) + style.backgroundColor.substring(2, 4) + style.backgroundColor.substring(0, 2);
+            String color = primary.substring(4, 6) + primary.substring(2, 4) + primary.substring(0, 2);
+            String bgcolor = background.substring(4, 6) + background.substring(2, 4) + background.substring(0, 2);
             colors = Long.parseLong(color, 16) + ",16777215,0," + Long.parseLong(bgcolor, 16) + ",";
         }
         return colors;
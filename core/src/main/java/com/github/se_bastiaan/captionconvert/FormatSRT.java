@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.File;
+import java.io.IOException;
+
+
+/**
+ * This class represents the .SRT subtitle format
+ * <br><br>
+ * Copyright (c) 2012 J. David Requejo <br>
+ * j[dot]david[dot]requejo[at] Gmail
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * <br><br>
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ * <br><br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * @author J. David Requejo
+ */
+public class FormatSRT extends TimedTextFileFormat {
+
+    /**
+     * Reads the file memory mapped, the text of a caption is only decoded when it is asked for.
+     */
+    @Override
+    public void parse(File file, CaptionHandler handler) throws IOException {
+        MappedCueParser.parse(map(file), TimeFormat.SRT_MS, handler);
+    }
+
+    public void parse(String fileName, LineReader lines, CaptionHandler handler) throws IOException {
+        parseNumberedCues(lines, TimeFormat.SRT_MS, handler);
+    }
+
+    public String[] toFile(TimedTextObject tto) {
+        return writeLines(tto);
+    }
+
+    @Override
+    public boolean write(TimedTextObject tto, Retiming retiming, Appendable out) throws IOException {
+        //first we check if the TimedTextObject had been built, otherwise...
+        if (!tto.built) {
+            return false;
+        }
+
+        //the caption number and timing lines are put together in this buffer, reused for every caption
+        char[] buffer = new char[64];
+        int captionNumber = 1;
+        //we iterate over our captions collection, they are ordered by start time
+        for (Caption current : tto.captions.values()) {
+            writeNumberedCue(out, buffer, captionNumber++, current, TimeFormat.SRT_MS, retiming);
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,738 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Hashtable;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+
+/**
+ * This class represents W3C's TTML DFXP .XML subtitle format
+ * <br><br>
+ * Copyright (c) 2012 J. David Requejo <br>
+ * j[dot]david[dot]requejo[at] Gmail
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * <br><br>
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ * <br><br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * @author J. David Requejo
+ */
+public class FormatTTML extends TimedTextFileFormat {
+
+    private static final String END_ATTRIBUTE = "\" end=\"";
+
+    //looking up the factory implementation is expensive, so it is done once
+    private static final SAXParserFactory SAX_PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    //a SAXParser can't be used by two threads at once, every thread gets its own
+    private static final ThreadLocal<SAXParser> SAX_PARSER = new ThreadLocal<SAXParser>() {
+        @Override
+        protected SAXParser initialValue() {
+            //the factory isn't thread safe either
+            synchronized (SAX_PARSER_FACTORY) {
+                try {
+                    return SAX_PARSER_FACTORY.newSAXParser();
+                } catch (ParserConfigurationException | SAXException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    };
+
+    public void parse(String fileName, LineReader lines, CaptionHandler handler) throws IOException, ParsingException {
+        //the lines are fed to the XML parser as they are read
+        parse(fileName, new LineReaderReader(lines), handler);
+    }
+
+    /**
+     * Parses the document as it is read: the styles and captions are reported as soon as their
+     * element ends, so apart from the styles nothing of the document is kept in memory.
+     */
+    @Override
+    public void parse(String fileName, Reader reader, CaptionHandler handler) throws IOException, ParsingException {
+        try {
+            SAXParser parser = SAX_PARSER.get();
+            parser.reset();
+            parser.parse(new InputSource(reader), new TTMLHandler(handler));
+        } catch (SAXException e) {
+            //the document isn't well formed, exceptions of the handler are passed on as they are
+            throw new ParsingException("Error during parsing: " + e.getMessage());
+        }
+    }
+
+    public String[] toFile(TimedTextObject tto) {
+        return writeLines(tto);
+    }
+
+    @Override
+    public boolean write(TimedTextObject tto, Retiming retiming, Appendable out) throws IOException {
+        //first we check if the TimedTextObject had been built, otherwise...
+        if (!tto.built)
+            return false;
+
+        //identification line is placed
+        out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+
+        //root element is placed
+        out.append("<tt xml:lang=\"");
+        Markup.appendEscaped(out, tto.language);
+        out.append("\" xmlns=\"http://www.w3.org/ns/ttml\" xmlns:tts=\"http://www.w3.org/ns/ttml#styling\">\n");
+
+        //head
+        out.append("\t<head>\n");
+
+        //metadata
+        out.append("\t\t<metadata xmlns:ttm=\"http://www.w3.org/ns/ttml#metadata\">\n");
+
+        //title
+        out.append("\t\t\t<ttm:title>");
+        if (tto.title == null || tto.title.isEmpty()) {
+            Markup.appendEscaped(out, tto.fileName);
+        } else {
+            Markup.appendEscaped(out, tto.title);
+        }
+        out.append("</ttm:title>\n");
+
+        //Copyright
+        if (tto.copyright != null && !tto.copyright.isEmpty()) {
+            out.append("\t\t\t<ttm:copyright>");
+            Markup.appendEscaped(out, tto.copyright);
+            out.append("</ttm:copyright>\n");
+        }
+
+        //additional info
+        out.append("\t\t\t<ttm:desc>Converted by the Online Subtitle Converter developed by J. David Requejo\n");
+        if (tto.author != null && !tto.author.isEmpty()) {
+            out.append("\n Original file by: ");
+            Markup.appendEscaped(out, tto.author);
+            out.append('\n');
+        }
+
+        if (tto.description != null && !tto.description.isEmpty()) {
+            Markup.appendEscaped(out, tto.description);
+            out.append('\n');
+        }
+        out.append("\t\t\t</ttm:desc>\n");
+
+        //metadata closes
+        out.append("\t\t</metadata>\n");
+        //styling opens
+        out.append("\t\t<styling>\n");
+
+        //Next we iterate over the styles
+        for (Style style : tto.styling.values()) {
+            //we add the attributes
+            out.append("\t\t\t<style xml:id=\"");
+            Markup.appendEscaped(out, style.id);
+            out.append('"');
+
+            if (style.color != null) {
+                out.append(" tts:color=\"#").append(style.color).append('"');
+            }
+            if (style.backgroundColor != null) {
+                out.append(" tts:backgroundColor=\"#").append(style.backgroundColor).append('"');
+            }
+            if (style.font != null) {
+                out.append(" tts:fontFamily=\"");
+                Markup.appendEscaped(out, style.font);
+                out.append('"');
+            }
+            if (style.fontSize != null) {
+                out.append(" tts:fontSize=\"");
+                Markup.appendEscaped(out, style.fontSize);
+                out.append('"');
+            }
+            if (style.italic) {
+                out.append(" tts:fontStyle=\"italic\"");
+            }
+            if (style.bold) {
+                out.append(" tts:fontWeight=\"bold\"");
+            }
+
+            out.append(" tts:textAlign=\"");
+
+            if (style.textAlign.contains("left")) {
+                out.append("left\"");
+            } else if (style.textAlign.contains("right")) {
+                out.append("right\"");
+            } else {
+                out.append("center\"");
+            }
+
+            if (style.underline) {
+                out.append(" tts:textDecoration=\"underline\"");
+            }
+
+            //style is ready, we close it.
+            out.append(" />\n");
+        }
+
+        //styling closes
+        out.append("\t\t</styling>\n");
+
+        //head closes
+        out.append("\t</head>\n");
+        //body opens
+        out.append("\t<body>\n");
+        //unique div opens
+        out.append("\t\t<div>\n");
+
+        //the begin and end attributes are put together in this buffer, reused for every caption
+        char[] buffer = new char[2 * TimeFormat.MAX_LENGTH + 8];
+
+        //Next we iterate over the captions
+        for (Caption caption : tto.captions.values()) {
+            //we open the subtitle line, with the retiming applied
+            out.append("\t\t\t<p begin=\"");
+            int length = TimeFormat.VTT_MS.format(retiming.apply(caption.start.getMilliseconds()), buffer, 0);
+            END_ATTRIBUTE.getChars(0, END_ATTRIBUTE.length(), buffer, length);
+            length += END_ATTRIBUTE.length();
+            length = TimeFormat.VTT_MS.format(retiming.apply(caption.end.getMilliseconds()), buffer, length);
+            buffer[length++] = '"';
+            append(out, buffer, length);
+            if (caption.style != null) {
+                out.append(" style=\"");
+                Markup.appendEscaped(out, caption.style.id);
+                out.append('"');
+            }
+            //attributes are done being inserted, if region was implemented it should be added before this.
+            out.append(" >");
+            //the content is escaped, line breaks are kept and other markup is dropped
+            Markup.appendXml(out, caption.getContent());
+            out.append("</p>\n");
+        }
+
+        //unique div closes
+        out.append("\t\t</div>\n");
+        //body closes
+        out.append("\t</body>\n");
+        //root closes
+        out.append("</tt>\n");
+
+        //an empty line is added
+        out.append('\n');
+
+        return true;
+    }
+
+
+	/* PRIVATE METHODS */
+
+    /**
+     * Receives the events of the XML parser and turns the style and p elements into styles and
+     * captions. Holds the state of a single parse.
+     */
+    private static class TTMLHandler extends DefaultHandler {
+
+        private final CaptionHandler handler;
+        private Locator locator;
+
+        //styles defined so far, to resolve references from other styles and captions
+        private final Hashtable<String, Style> styling = new Hashtable<>();
+        //timing parameters from the root element, defaults used by the original DOM based parser
+        private int frameRate = 25;
+        private int tickRate = 1;
+        private boolean root = true;
+
+        //metadata element being read, and the metadata that has been reported already
+        private String metadata;
+        private final StringBuilder metadataText = new StringBuilder();
+        private boolean title, copyright, description;
+
+        //caption being read, null outside a p element
+        private Caption caption;
+        private boolean validCaption;
+        private boolean hasText;
+        //depth of the element being read, below the p
+        private int depth;
+        private final StringBuilder content = new StringBuilder();
+        //text directly inside the p since the last child element
+        private final StringBuilder textRun = new StringBuilder();
+        private int captionIndex = 0;
+        private boolean inlineStylingReported;
+
+        TTMLHandler(CaptionHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        private int line() {
+            return locator != null ? locator.getLineNumber() : 0;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (root) {
+                root = false;
+                //the timing parameters are read once, instead of for every time expression
+                frameRate = parseRate(attributes.getValue("ttp:frameRate"), frameRate);
+                tickRate = parseRate(attributes.getValue("ttp:tickRate"), tickRate);
+            }
+            if (caption != null) {
+                //only text directly inside the p is kept
+                if (depth == 0) {
+                    flushText();
+                    if (qName.equals("br")) {
+                        content.append("<br />");
+                    }
+                }
+                depth++;
+            } else if (metadata != null) {
+                //the text of nested elements is part of the metadata
+            } else if (qName.equals("p")) {
+                startCaption(attributes);
+            } else if (qName.equals("style")) {
+                parseStyle(attributes);
+            } else if ((qName.equals("ttm:title") && !title)
+                    || (qName.equals("ttm:copyright") && !copyright)
+                    || (qName.equals("ttm:desc") && !description)) {
+                metadata = qName;
+                metadataText.setLength(0);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (caption != null) {
+                if (depth > 0) {
+                    depth--;
+                } else {
+                    endCaption();
+                }
+            } else if (metadata != null && qName.equals(metadata)) {
+                if (metadata.equals("ttm:title")) {
+                    title = true;
+                    handler.onMetadata(CaptionHandler.TITLE, metadataText.toString());
+                } else if (metadata.equals("ttm:copyright")) {
+                    copyright = true;
+                    handler.onMetadata(CaptionHandler.COPYRIGHT, metadataText.toString());
+                } else {
+                    description = true;
+                    handler.onMetadata(CaptionHandler.DESCRIPTION, metadataText.toString());
+                }
+                metadata = null;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (caption != null) {
+                if (depth == 0) {
+                    textRun.append(ch, start, length);
+                }
+            } else if (metadata != null) {
+                metadataText.append(ch, start, length);
+            }
+        }
+
+        private void flushText() {
+            //every run of text is trimmed on its own, like the text nodes of the DOM were
+            int start = 0;
+            int end = textRun.length();
+            while (start < end && textRun.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && textRun.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start < end) {
+                content.append(textRun, start, end);
+                hasText = true;
+            }
+            textRun.setLength(0);
+        }
+
+        private void startCaption(Attributes attributes) {
+            caption = new Caption();
+            validCaption = true;
+            hasText = false;
+            depth = 0;
+            content.setLength(0);
+            textRun.setLength(0);
+
+            //we get the begin time, if no begin is present, 0 is assumed
+            caption.start = new Time(0);
+            caption.end = new Time(0);
+            String value = attributes.getValue("begin");
+            if (value != null)
+                caption.start.setMilliseconds(parseTimeExpression(value));
+
+            //we get the end time, if present, duration is ignored, otherwise end is calculated from duration
+            value = attributes.getValue("end");
+            if (value != null)
+                caption.end.setMilliseconds(parseTimeExpression(value));
+            else {
+                value = attributes.getValue("dur");
+                if (value != null)
+                    caption.end.setMilliseconds(caption.start.getMilliseconds() + parseTimeExpression(value));
+                else
+                    //no end or duration, invalid format, caption is discarded
+                    validCaption = false;
+            }
+
+            //we get the style
+            value = attributes.getValue("style");
+            if (value != null) {
+                Style style = styling.get(value);
+                if (style != null)
+                    caption.style = style;
+                else
+                    //unrecognized style
+                    handler.onWarning(Diagnostic.Code.UNDEFINED_STYLE, line(), captionIndex, value);
+            }
+
+            //styling attributes are only recognized inside a style definition
+            if (!inlineStylingReported) {
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    if (attributes.getQName(i).startsWith("tts:")) {
+                        inlineStylingReported = true;
+                        handler.onWarning(Diagnostic.Code.INLINE_STYLING_IGNORED, line(), captionIndex, attributes.getQName(i));
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void endCaption() {
+            flushText();
+            caption.content = content.toString();
+
+            //and save the caption, if it has any text
+            if (validCaption && hasText) {
+                handler.onCaption(caption);
+                captionIndex++;
+            }
+            caption = null;
+        }
+
+        private void parseStyle(Attributes attributes) {
+            Style style = new Style(Style.defaultID());
+            //we get the id
+            String value = attributes.getValue("id");
+            if (value != null)
+                style.id = value;
+            value = attributes.getValue("xml:id");
+            if (value != null)
+                style.id = value;
+
+            //we get the style it may be based upon
+            value = attributes.getValue("style");
+            if (value != null)
+                if (styling.containsKey(value))
+                    style = new Style(style.id, styling.get(value));
+
+            //we check for background color
+            value = attributes.getValue("tts:backgroundColor");
+            if (value != null)
+                style.backgroundColor = parseColor(value);
+
+            //we check for color
+            value = attributes.getValue("tts:color");
+            if (value != null)
+                style.color = parseColor(value);
+
+            //we check for font family
+            value = attributes.getValue("tts:fontFamily");
+            if (value != null)
+                style.font = value;
+
+            //we check for font size
+            value = attributes.getValue("tts:fontSize");
+            if (value != null)
+                style.fontSize = value;
+
+            //we check for italics
+            value = attributes.getValue("tts:fontStyle");
+            if (value != null)
+                if (value.equalsIgnoreCase("italic") || value.equalsIgnoreCase("oblique"))
+                    style.italic = true;
+                else if (value.equalsIgnoreCase("normal"))
+                    style.italic = false;
+
+            //we check for bold
+            value = attributes.getValue("tts:fontWeight");
+            if (value != null)
+                if (value.equalsIgnoreCase("bold"))
+                    style.bold = true;
+                else if (value.equalsIgnoreCase("normal"))
+                    style.bold = false;
+
+            //we check opacity (to set the alpha)
+            value = attributes.getValue("tts:opacity");
+            if (value != null) {
+                try {
+                    //a number between 1.0 and 0
+                    float alpha = Float.parseFloat(value);
+                    if (alpha > 1)
+                        alpha = 1;
+                    else if (alpha < 0)
+                        alpha = 0;
+
+                    String aa = Integer.toHexString((int) (alpha * 255));
+                    if (aa.length() < 2)
+                        aa = "0" + aa;
+
+                    if (style.color != null)
+                        style.color = style.color.substring(0, 6) + aa;
+                    if (style.backgroundColor != null)
+                        style.backgroundColor = style.backgroundColor.substring(0, 6) + aa;
+
+                } catch (NumberFormatException e) {
+                    //ignore the alpha
+                }
+            }
+
+            //we check for text align
+            value = attributes.getValue("tts:textAlign");
+            if (value != null)
+                if (value.equalsIgnoreCase("left") || value.equalsIgnoreCase("start"))
+                    style.textAlign = "bottom-left";
+                else if (value.equalsIgnoreCase("right") || value.equalsIgnoreCase("end"))
+                    style.textAlign = "bottom-right";
+
+            //we check for underline
+            value = attributes.getValue("tts:textDecoration");
+            if (value != null)
+                if (value.equalsIgnoreCase("underline"))
+                    style.underline = true;
+                else if (value.equalsIgnoreCase("noUnderline"))
+                    style.underline = false;
+
+            //we add the style
+            styling.put(style.id, style);
+            handler.onStyle(style);
+        }
+
+        /**
+         * Identifies the color expression and obtains the RGBA equivalent value.
+         *
+         * @param color
+         * @return
+         */
+        private String parseColor(String color) {
+            String value = "";
+            String[] values;
+            if (color.startsWith("#")) {
+                if (color.length() == 7) {
+                    value = color.substring(1) + "ff";
+                } else if (color.length() == 9) {
+                    value = color.substring(1);
+                } else {
+                    //unrecognized format
+                    value = "ffffffff";
+                    handler.onWarning(Diagnostic.Code.UNRECOGNIZED_COLOR, line(), -1, color);
+                }
+
+            } else if (color.startsWith("rgb")) {
+                boolean alpha = false;
+                if (color.startsWith("rgba")) {
+                    alpha = true;
+                }
+                try {
+                    values = color.split("\\(")[1].split(",");
+                    int r, g, b, a = 255;
+                    r = Integer.parseInt(values[0]);
+                    g = Integer.parseInt(values[1]);
+                    b = Integer.parseInt(values[2].substring(0, 2));
+                    if (alpha) a = Integer.parseInt(values[3].substring(0, 2));
+
+                    values[0] = Integer.toHexString(r);
+                    values[1] = Integer.toHexString(g);
+                    values[2] = Integer.toHexString(b);
+                    if (alpha) {
+                        values[2] = Integer.toHexString(a);
+                    }
+
+                    for (int i = 0; i < values.length; i++) {
+                        if (values[i].length() < 2) {
+                            values[i] = "0" + values[i];
+                        }
+                        value += values[i];
+                    }
+
+                    if (!alpha) {
+                        value += "ff";
+                    }
+                } catch (Exception e) {
+                    value = "ffffffff";
+                    handler.onWarning(Diagnostic.Code.UNRECOGNIZED_COLOR, line(), -1, color);
+                }
+
+            } else {
+                //it should be a named color so...
+                value = Style.getRGBValue("name", color);
+                //if not recognized named color
+                if (value == null || value.isEmpty()) {
+                    value = "ffffffff";
+                    handler.onWarning(Diagnostic.Code.UNRECOGNIZED_COLOR, line(), -1, color);
+                }
+            }
+
+            return value;
+        }
+
+        /**
+         * returns the number of milliseconds equivalent to this time expression
+         *
+         * @param timeExpression
+         * @return
+         */
+        private int parseTimeExpression(String timeExpression) {
+            int seconds = 0;
+            if (timeExpression.contains(":")) {
+                //it is a clock time
+                String[] parts = timeExpression.split(":");
+                if (parts.length == 3) {
+                    //we have h:m:s.fraction
+                    int h, m;
+                    float s;
+                    h = Integer.parseInt(parts[0]);
+                    m = Integer.parseInt(parts[1]);
+                    s = Float.parseFloat(parts[2]);
+                    seconds = h * 3600000 + m * 60000 + (int) (s * 1000);
+                } else if (parts.length == 4) {
+                    //we have h:m:s:f.fraction
+                    int h, m, s;
+                    float f;
+                    h = Integer.parseInt(parts[0]);
+                    m = Integer.parseInt(parts[1]);
+                    s = Integer.parseInt(parts[2]);
+                    f = Float.parseFloat(parts[3]);
+                    seconds = h * 3600000 + m * 60000 + s * 1000 + (int) (f * 1000 / frameRate);
+                } else {
+                    //unrecognized  clock time format
+                }
+
+            } else {
+                //it is an offset - time, this is composed of a number and a metric
+                String metric = timeExpression.endsWith("ms") ? "ms" : timeExpression.substring(timeExpression.length() - 1);
+                timeExpression = timeExpression.substring(0, timeExpression.length() - metric.length()).replace(',', '.').trim();
+                double time;
+                try {
+                    time = Double.parseDouble(timeExpression);
+
+                    if (metric.equalsIgnoreCase("h")) {
+                        seconds = (int) (time * 3600000);
+                    } else if (metric.equalsIgnoreCase("m")) {
+                        seconds = (int) (time * 60000);
+                    } else if (metric.equalsIgnoreCase("s")) {
+                        seconds = (int) (time * 1000);
+                    } else if (metric.equalsIgnoreCase("ms")) {
+                        seconds = (int) time;
+                    } else if (metric.equalsIgnoreCase("f")) {
+                        seconds = (int) (time * 1000 / frameRate);
+                    } else if (metric.equalsIgnoreCase("t")) {
+                        seconds = (int) (time * 1000 / tickRate);
+                    } else {
+                        //invalid metric
+                    }
+                } catch (NumberFormatException e) {
+                    //incorrect format for offset time
+                }
+            }
+
+            return seconds;
+        }
+
+        private static int parseRate(String value, int defaultRate) {
+            if (value != null) {
+                try {
+                    int rate = Integer.parseInt(value.trim());
+                    if (rate > 0) {
+                        return rate;
+                    }
+                } catch (NumberFormatException e) {
+                    //the default is used
+                }
+            }
+            return defaultRate;
+        }
+
+    }
+
+    /**
+     * Feeds the lines of a LineReader to the XML parser, without joining them into one string first.
+     */
+    private static class LineReaderReader extends Reader {
+
+        private final LineReader lines;
+        private String line;
+        private int position;
+
+        LineReaderReader(LineReader lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (line == null || position > line.length()) {
+                line = lines.next();
+                position = 0;
+                if (line == null) {
+                    return -1;
+                }
+            }
+            if (position == line.length()) {
+                //the line terminator lost by the LineReader
+                position++;
+                buffer[offset] = '\n';
+                return 1;
+            }
+            int count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * This class represents the .VTT subtitle format
+ */
+public class FormatVTT extends TimedTextFileFormat {
+
+    /**
+     * Reads the file memory mapped, the text of a caption is only decoded when it is asked for.
+     */
+    @Override
+    public void parse(File file, CaptionHandler handler) throws IOException {
+        MappedCueParser.parse(map(file), TimeFormat.VTT_MS, handler);
+    }
+
+    @Override
+    public void parse(String fileName, LineReader lines, CaptionHandler handler) throws IOException {
+        parseNumberedCues(lines, TimeFormat.VTT_MS, handler);
+    }
+
+    public String[] toFile(TimedTextObject tto) {
+        return writeLines(tto);
+    }
+
+    @Override
+    public boolean write(TimedTextObject tto, Retiming retiming, Appendable out) throws IOException {
+        //first we check if the TimedTextObject had been built, otherwise...
+        if (!tto.built) {
+            return false;
+        }
+
+        out.append("WEBVTT\n\n");
+
+        //the caption number and timing lines are put together in this buffer, reused for every caption
+        char[] buffer = new char[64];
+        int captionNumber = 1;
+        //we iterate over our captions collection, they are ordered by start time
+        for (Caption current : tto.captions.values()) {
+            writeNumberedCue(out, buffer, captionNumber++, current, TimeFormat.VTT_MS, retiming);
+        }
+
+        return true;
+    }
+
+}
\ No newline at end of file
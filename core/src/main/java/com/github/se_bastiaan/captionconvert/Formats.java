@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+/**
+ * Shared instances of every supported format. Formats keep no state between calls, so these can be
+ * used from any number of threads at once instead of creating a new format for every file.
+ */
+public final class Formats {
+
+    public static final FormatSRT SRT = new FormatSRT();
+    public static final FormatVTT VTT = new FormatVTT();
+    public static final FormatASS ASS = new FormatASS();
+    public static final FormatTTML TTML = new FormatTTML();
+
+    private Formats() {
+    }
+
+    /**
+     * @param extension file extension, with or without the leading dot
+     * @return the format for files with the given extension, or null if it isn't supported
+     */
+    public static TimedTextFileFormat forExtension(String extension) {
+        if (extension.startsWith(".")) {
+            extension = extension.substring(1);
+        }
+        if (extension.equalsIgnoreCase("srt")) {
+            return SRT;
+        } else if (extension.equalsIgnoreCase("vtt")) {
+            return VTT;
+        } else if (extension.equalsIgnoreCase("ass") || extension.equalsIgnoreCase("ssa")) {
+            return ASS;
+        } else if (extension.equalsIgnoreCase("ttml") || extension.equalsIgnoreCase("dfxp") || extension.equalsIgnoreCase("xml")) {
+            return TTML;
+        }
+        return null;
+    }
+
+}
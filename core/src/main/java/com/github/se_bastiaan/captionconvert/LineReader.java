@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Sequential source of lines for the line based formats. It either walks an array of lines or
+ * reads them one by one from a {@link Reader}, so a file never has to be held in memory as a whole.
+ */
+public abstract class LineReader {
+
+    /**
+     * Returns the next line, without its line terminator.
+     *
+     * @return the next line or null when the end of the input has been reached
+     * @throws IOException when the underlying source could not be read
+     */
+    public abstract String next() throws IOException;
+
+    /**
+     * @return true if at least one more line can be read
+     * @throws IOException when the underlying source could not be read
+     */
+    public abstract boolean hasNext() throws IOException;
+
+    /**
+     * @param lines lines to walk through
+     * @return a LineReader over the given array
+     */
+    public static LineReader of(String[] lines) {
+        return new ArrayLineReader(lines);
+    }
+
+    /**
+     * @param reader source to read the lines from, it is buffered if it isn't already
+     * @return a LineReader that reads the given source one line at a time
+     */
+    public static LineReader of(Reader reader) {
+        return new BufferedLineReader(reader);
+    }
+
+    private static class ArrayLineReader extends LineReader {
+
+        private final String[] lines;
+        private int index;
+
+        ArrayLineReader(String[] lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public String next() {
+            if (index < lines.length) {
+                return lines[index++];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < lines.length;
+        }
+
+    }
+
+    private static class BufferedLineReader extends LineReader {
+
+        private final BufferedReader reader;
+        // one line of look ahead is needed to answer hasNext()
+        private String nextLine;
+        private boolean first = true;
+
+        BufferedLineReader(Reader reader) {
+            if (reader instanceof BufferedReader) {
+                this.reader = (BufferedReader) reader;
+            } else {
+                this.reader = new BufferedReader(reader);
+            }
+        }
+
+        @Override
+        public String next() throws IOException {
+            String line = nextLine;
+            if (line != null) {
+                nextLine = null;
+            } else {
+                line = read();
+            }
+            return line;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            if (nextLine == null) {
+                nextLine = read();
+            }
+            return nextLine != null;
+        }
+
+        private String read() throws IOException {
+            String line = reader.readLine();
+            if (first && line != null) {
+                first = false;
+                //a byte order mark would make the first line unreadable for the parsers
+                if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+            }
+            return line;
+        }
+
+    }
+
+}
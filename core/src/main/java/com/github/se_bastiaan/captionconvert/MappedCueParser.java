@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Parses SRT and VTT straight from the UTF-8 bytes of a file, usually memory mapped. Cue numbers and
+ * timing lines are read without decoding them, the text of a cue is only decoded when
+ * {@link Caption#getContent()} is called. Follows the same rules as the line based parsers of
+ * {@link FormatSRT} and {@link FormatVTT}, including the warnings they report.
+ */
+final class MappedCueParser {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer bytes;
+    private final int limit;
+    private final TimeFormat format;
+    private final CaptionHandler handler;
+    private final Ascii ascii;
+
+    //bounds of the current line without surrounding whitespace, and the start of the next one
+    private int lineStart;
+    private int lineEnd;
+    private int next;
+    private int lineNumber;
+
+    private MappedCueParser(ByteBuffer bytes, TimeFormat format, CaptionHandler handler) {
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+        this.format = format;
+        this.handler = handler;
+        this.ascii = new Ascii(bytes, limit);
+    }
+
+    /**
+     * @param bytes   contents of the file, only read with absolute gets so its position is untouched
+     * @param format  the format of the timestamps
+     * @param handler receiver of the captions and warnings
+     */
+    static void parse(ByteBuffer bytes, TimeFormat format, CaptionHandler handler) {
+        new MappedCueParser(bytes, format, handler).parse();
+    }
+
+    private void parse() {
+        //a byte order mark would make the first line unreadable
+        if (limit >= 3 && bytes.get(0) == (byte) 0xEF && bytes.get(1) == (byte) 0xBB && bytes.get(2) == (byte) 0xBF) {
+            next = 3;
+        }
+        int captionNumber = 1;
+        int captionIndex = 0;
+        while (nextLine()) {
+            //if its a blank line, ignore it, otherwise...
+            if (lineStart == lineEnd) {
+                continue;
+            }
+            //the first thing should be an increasing number
+            if (number() != captionNumber) {
+                handler.onWarning(Diagnostic.Code.CAPTION_NUMBER_EXPECTED, lineNumber, captionIndex, decode(lineStart, lineEnd));
+                skipToBlank();
+                continue;
+            }
+            captionNumber++;
+
+            //we go to next line, here the begin and end time should be found
+            if (!nextLine()) {
+                //the missing line counts, like it does for the line based parsers
+                handler.onWarning(Diagnostic.Code.UNEXPECTED_END_OF_FILE, lineNumber + 1, captionIndex, null);
+                return;
+            }
+            Caption caption = new Caption();
+            try {
+                TimedTextFileFormat.parseTimingLine(ascii, lineStart, lineEnd, format, caption);
+            } catch (NumberFormatException e) {
+                handler.onWarning(Diagnostic.Code.INVALID_TIME_FORMAT, lineNumber, captionIndex, decode(lineStart, lineEnd));
+                skipToBlank();
+                continue;
+            }
+
+            //the text runs until the next blank line, it is only located here
+            if (!nextLine()) {
+                //the missing line counts, like it does for the line based parsers
+                handler.onWarning(Diagnostic.Code.UNEXPECTED_END_OF_FILE, lineNumber + 1, captionIndex, null);
+                return;
+            }
+            if (lineStart != lineEnd) {
+                int textStart = lineStart;
+                int textEnd = lineEnd;
+                while (nextLine() && lineStart != lineEnd) {
+                    textEnd = lineEnd;
+                }
+                caption.setLazyContent(new Text(bytes, textStart, textEnd));
+            }
+            handler.onCaption(caption);
+            captionIndex++;
+        }
+    }
+
+    /**
+     * Moves to the next line, handling \n, \r\n and \r like a BufferedReader does.
+     *
+     * @return false at the end of the file
+     */
+    private boolean nextLine() {
+        if (next >= limit) {
+            lineStart = lineEnd = limit;
+            return false;
+        }
+        int i = next;
+        byte b = 0;
+        while (i < limit && (b = bytes.get(i)) != '\n' && b != '\r') {
+            i++;
+        }
+        int start = next;
+        int end = i;
+        if (i < limit) {
+            i++;
+            if (b == '\r' && i < limit && bytes.get(i) == '\n') {
+                i++;
+            }
+        }
+        next = i;
+        lineNumber++;
+
+        //same as String.trim(), the bytes of multi byte characters are all above ' '
+        while (start < end && (bytes.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+        return true;
+    }
+
+    private void skipToBlank() {
+        while (nextLine() && lineStart != lineEnd) {
+            //keep going
+        }
+    }
+
+    /**
+     * @return the line as a number, accepting what Integer.parseInt does on the line based parsers,
+     * or -1 if it isn't one
+     */
+    private int number() {
+        if (lineEnd - lineStart <= 9) {
+            int value = 0;
+            int i = lineStart;
+            for (; i < lineEnd; i++) {
+                int digit = bytes.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (i == lineEnd) {
+                return value;
+            }
+        }
+        //signs, leading zeros and digits of other scripts are rare enough to decode the line for
+        try {
+            return Integer.parseInt(decode(lineStart, lineEnd));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String decode(int start, int end) {
+        return decode(bytes, start, end);
+    }
+
+    /**
+     * @return bytes[start, end) decoded as UTF-8, without touching the position of the buffer
+     */
+    static String decode(ByteBuffer bytes, int start, int end) {
+        byte[] data = new byte[end - start];
+        //a duplicate has its own position, so threads decoding different captions don't interfere
+        ByteBuffer slice = bytes.duplicate();
+        slice.position(start);
+        slice.get(data);
+        return new String(data, UTF_8);
+    }
+
+    /**
+     * The undecoded text lines of a cue.
+     */
+    private static final class Text extends LazyContent {
+
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        Text(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        String decode() {
+            String text = MappedCueParser.decode(bytes, start, end);
+            //every line is trimmed and followed by a line break, like the line based parsers do
+            StringBuilder sb = new StringBuilder(text.length() + 12);
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                int lineEnd = i;
+                char c = 0;
+                while (lineEnd < length && (c = text.charAt(lineEnd)) != '\n' && c != '\r') {
+                    lineEnd++;
+                }
+                int next = lineEnd + (c == '\r' && lineEnd + 1 < length && text.charAt(lineEnd + 1) == '\n' ? 2 : 1);
+                int lineStart = i;
+                while (lineStart < lineEnd && text.charAt(lineStart) <= ' ') {
+                    lineStart++;
+                }
+                while (lineEnd > lineStart && text.charAt(lineEnd - 1) <= ' ') {
+                    lineEnd--;
+                }
+                sb.append(text, lineStart, lineEnd).append(Markup.LINE_BREAK);
+                i = next;
+            }
+            return sb.toString();
+        }
+
+    }
+
+    /**
+     * The bytes of the file seen as characters, enough for the ASCII timestamps.
+     */
+    private static final class Ascii implements CharSequence {
+
+        private final ByteBuffer bytes;
+        private final int length;
+
+        Ascii(ByteBuffer bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return decode(bytes, start, end);
+        }
+
+        @Override
+        public String toString() {
+            return decode(bytes, 0, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.IOException;
+
+/**
+ * Single pass scanner for the markup kept in {@link Caption#content}: line breaks are stored as
+ * {@code <br />} and any other tag is styling the plain text formats can't represent. It replaces
+ * the split and replaceAll calls the writers used to do for every caption, which compiled a new
+ * regular expression each time.
+ * <p>
+ * A tag runs from a '&lt;' to the first '&gt;' after it on the same line; a '&lt;' without one is
+ * kept as text, just like the {@code <.*?>} expression did.
+ */
+final class Markup {
+
+    static final String LINE_BREAK = "<br />";
+
+    private Markup() {
+    }
+
+    /**
+     * Writes the content as plain text lines, each one followed by '\n'. Like splitting on the line
+     * breaks, trailing empty lines are dropped, but an empty content still gives one empty line.
+     *
+     * @param out     destination of the text
+     * @param content caption content
+     * @throws IOException when the destination can't be written to
+     */
+    static void appendLines(Appendable out, String content) throws IOException {
+        int length = content.length();
+        if (length == 0) {
+            out.append('\n');
+            return;
+        }
+        int start = 0;
+        //empty lines are only written once something follows them
+        int emptyLines = 0;
+        while (start <= length) {
+            int end = content.indexOf(LINE_BREAK, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == start) {
+                emptyLines++;
+            } else {
+                for (; emptyLines > 0; emptyLines--) {
+                    out.append('\n');
+                }
+                appendStripped(out, content, start, end, '<', '>', false);
+                out.append('\n');
+            }
+            start = end + LINE_BREAK.length();
+        }
+    }
+
+    /**
+     * Writes the content as plain text with every line break replaced by the given separator.
+     *
+     * @param out       destination of the text
+     * @param content   caption content
+     * @param lineBreak what to write for each line break
+     * @throws IOException when the destination can't be written to
+     */
+    static void appendText(Appendable out, String content, String lineBreak) throws IOException {
+        int length = content.length();
+        int start = 0;
+        while (true) {
+            int end = content.indexOf(LINE_BREAK, start);
+            if (end < 0) {
+                appendStripped(out, content, start, length, '<', '>', false);
+                return;
+            }
+            appendStripped(out, content, start, end, '<', '>', false);
+            out.append(lineBreak);
+            start = end + LINE_BREAK.length();
+        }
+    }
+
+    /**
+     * @param content caption content
+     * @return the content without tags, with '\n' between the lines and no trailing line breaks
+     */
+    static String plainText(String content) {
+        if (content.indexOf('<') < 0 && !content.endsWith("\n")) {
+            return content;
+        }
+        StringBuilder sb = new StringBuilder(content.length());
+        try {
+            appendText(sb, content, "\n");
+        } catch (IOException e) {
+            //a StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        int length = sb.length();
+        while (length > 0 && sb.charAt(length - 1) == '\n') {
+            length--;
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the content as the text of an XML element: line breaks stay {@code <br />}, other
+     * tags are stripped and the text is escaped. Character references the content already holds,
+     * such as the {@code &amp;} of WebVTT, are kept instead of being escaped a second time; the
+     * named ones XML doesn't know are written as numeric references.
+     *
+     * @param out     destination of the text
+     * @param content caption content
+     * @throws IOException when the destination can't be written to
+     */
+    static void appendXml(Appendable out, String content) throws IOException {
+        int length = content.length();
+        int start = 0;
+        while (true) {
+            int end = content.indexOf(LINE_BREAK, start);
+            if (end < 0) {
+                appendStripped(out, content, start, length, '<', '>', true);
+                return;
+            }
+            appendStripped(out, content, start, end, '<', '>', true);
+            out.append("<br />");
+            start = end + LINE_BREAK.length();
+        }
+    }
+
+    /**
+     * Writes text so it can be used as XML text or attribute value. The text is only copied piece
+     * by piece when it contains something that has to be escaped.
+     *
+     * @param out  destination of the text
+     * @param text text to escape
+     * @throws IOException when the destination can't be written to
+     */
+    static void appendEscaped(Appendable out, String text) throws IOException {
+        appendEscaped(out, text, 0, text.length(), false);
+    }
+
+    /**
+     * Escapes text[start, end), passing character references through when asked to.
+     */
+    private static void appendEscaped(Appendable out, String text, int start, int end, boolean references) throws IOException {
+        //start of the text not written yet
+        int pending = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            String escaped;
+            //last character replaced by escaped
+            int last = i;
+            if (c == '&') {
+                int semicolon = references ? referenceEnd(text, i, end) : -1;
+                if (semicolon < 0) {
+                    escaped = "&amp;";
+                } else {
+                    escaped = xmlReference(text, i);
+                    if (escaped == null) {
+                        //already valid XML, written as it is
+                        i = semicolon;
+                        continue;
+                    }
+                    last = semicolon;
+                }
+            } else if (c == '<') {
+                escaped = "&lt;";
+            } else if (c == '>') {
+                escaped = "&gt;";
+            } else if (c == '"') {
+                escaped = "&quot;";
+            } else if (c < ' ' && c != '\t' && c != '\n' && c != '\r') {
+                //not allowed in XML 1.0 at all
+                escaped = "";
+            } else {
+                continue;
+            }
+            if (pending < i) {
+                out.append(text, pending, i);
+            }
+            out.append(escaped);
+            i = last;
+            pending = last + 1;
+        }
+        if (pending < end) {
+            out.append(text, pending, end);
+        }
+    }
+
+    /**
+     * Removes every block enclosed by the given delimiters, such as the {@code {...}} override
+     * codes of ASS.
+     *
+     * @param text  text to clean
+     * @param open  first character of a block
+     * @param close last character of a block
+     * @return the text without the blocks, or the same instance when there are none
+     */
+    static String strip(String text, char open, char close) {
+        if (text.indexOf(open) < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        try {
+            appendStripped(sb, text, 0, text.length(), open, close, false);
+        } catch (IOException e) {
+            //a StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes text[start, end) leaving out the blocks enclosed by the given delimiters, escaping what
+     * is left for XML if asked to. A block can't span lines or go past end.
+     */
+    private static void appendStripped(Appendable out, String text, int start, int end, char open, char close, boolean xml) throws IOException {
+        //start of the text not written yet
+        int pending = start;
+        int i = start;
+        while (i < end) {
+            if (text.charAt(i) != open) {
+                i++;
+                continue;
+            }
+            int j = i + 1;
+            while (j < end && text.charAt(j) != close && text.charAt(j) != '\n') {
+                j++;
+            }
+            if (j < end && text.charAt(j) == close) {
+                appendRun(out, text, pending, i, xml);
+                pending = j + 1;
+                i = j + 1;
+            } else {
+                //not a block, the delimiter is kept
+                i++;
+            }
+        }
+        appendRun(out, text, pending, end, xml);
+    }
+
+    /**
+     * @return the position of the ';' closing the character reference starting at the '&amp;' at
+     * text[start], or -1 when there is no reference of a form XML or WebVTT knows
+     */
+    private static int referenceEnd(String text, int start, int end) {
+        int i = start + 1;
+        if (i < end && text.charAt(i) == '#') {
+            i++;
+            boolean hex = i < end && (text.charAt(i) == 'x' || text.charAt(i) == 'X');
+            if (hex) {
+                i++;
+            }
+            int value = 0;
+            int digits = 0;
+            for (; i < end && text.charAt(i) != ';'; i++) {
+                int digit = Character.digit(text.charAt(i), hex ? 16 : 10);
+                //more than 7 digits can't be a code point, stopping there keeps value from overflowing
+                if (digit < 0 || ++digits > 7) {
+                    return -1;
+                }
+                value = value * (hex ? 16 : 10) + digit;
+            }
+            boolean allowed = value == '\t' || value == '\n' || value == '\r'
+                    || value >= ' ' && value <= Character.MAX_CODE_POINT && (value < 0xD800 || value > 0xDFFF);
+            return i < end && digits > 0 && allowed ? i : -1;
+        }
+        int nameStart = i;
+        while (i < end && (text.charAt(i) >= 'a' && text.charAt(i) <= 'z' || text.charAt(i) >= 'A' && text.charAt(i) <= 'Z')) {
+            i++;
+        }
+        if (i == end || text.charAt(i) != ';' || i == nameStart) {
+            return -1;
+        }
+        String name = text.substring(nameStart, i);
+        return name.equals("amp") || name.equals("lt") || name.equals("gt") || name.equals("quot") || name.equals("apos")
+                || name.equals("nbsp") || name.equals("lrm") || name.equals("rlm") ? i : -1;
+    }
+
+    /**
+     * @return what to write for the valid reference at text[start], or null when it can be written as it is
+     */
+    private static String xmlReference(String text, int start) {
+        //the named references of WebVTT that aren't predefined in XML
+        if (text.startsWith("&nbsp;", start)) {
+            return "&#160;";
+        } else if (text.startsWith("&lrm;", start)) {
+            return "&#8206;";
+        } else if (text.startsWith("&rlm;", start)) {
+            return "&#8207;";
+        }
+        return null;
+    }
+
+    private static void appendRun(Appendable out, String text, int start, int end, boolean xml) throws IOException {
+        if (xml) {
+            appendEscaped(out, text, start, end, true);
+        } else if (start < end) {
+            out.append(text, start, end);
+        }
+    }
+
+}
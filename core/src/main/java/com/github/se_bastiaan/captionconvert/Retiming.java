@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.Arrays;
+
+/**
+ * Changes the times of the captions while they are written, without touching the {@link Time}
+ * objects of the captions. Retimings are immutable, so one {@link TimedTextObject} can be written by
+ * several threads at once, each with its own retiming.
+ */
+public abstract class Retiming {
+
+    /**
+     * Leaves every time as it is.
+     */
+    public static final Retiming NONE = new Offset(0);
+
+    /**
+     * @param milliseconds time of a caption
+     * @return the time to write instead, times below zero are written as zero
+     */
+    public abstract int apply(int milliseconds);
+
+    /**
+     * @param next retiming to apply to the result of this one
+     * @return a retiming applying this one and then the given one
+     */
+    public Retiming then(Retiming next) {
+        if (next == NONE) {
+            return this;
+        }
+        if (this == NONE) {
+            return next;
+        }
+        return new Chain(this, next);
+    }
+
+    /**
+     * @param milliseconds delay to add to every time, may be negative
+     * @return a retiming shifting all times by the same amount
+     */
+    public static Retiming offset(int milliseconds) {
+        return milliseconds == 0 ? NONE : new Offset(milliseconds);
+    }
+
+    /**
+     * @param factor number every time is multiplied by
+     * @return a retiming stretching or shrinking all times
+     */
+    public static Retiming scale(double factor) {
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Invalid scale factor: " + factor);
+        }
+        return factor == 1 ? NONE : new Scale(factor);
+    }
+
+    /**
+     * Converts the times for a video that is played at another frame rate, such as film at 23.976
+     * fps sped up to 25 fps for PAL.
+     *
+     * @param from frame rate the captions were timed for
+     * @param to   frame rate the video is played at
+     * @return a retiming scaling all times by from / to
+     */
+    public static Retiming frameRate(double from, double to) {
+        if (!(from > 0) || !(to > 0)) {
+            throw new IllegalArgumentException("Invalid frame rate: " + from + " to " + to);
+        }
+        return scale(from / to);
+    }
+
+    /**
+     * Moves the given points in time to new times and everything between two points linearly along
+     * with them. Times before the first or after the last point get the same shift as that point.
+     *
+     * @param from points in time, strictly increasing
+     * @param to   the times these points move to, strictly increasing as well
+     * @return a piecewise linear retiming
+     */
+    public static Retiming syncMap(int[] from, int[] to) {
+        if (from.length == 0 || from.length != to.length) {
+            throw new IllegalArgumentException("A sync map needs the same number of points on both sides, at least one");
+        }
+        for (int i = 1; i < from.length; i++) {
+            if (from[i] <= from[i - 1] || to[i] <= to[i - 1]) {
+                throw new IllegalArgumentException("Sync points must be strictly increasing, point " + i + " isn't");
+            }
+        }
+        if (from.length == 1) {
+            return offset(to[0] - from[0]);
+        }
+        return new SyncMap(Arrays.copyOf(from, from.length), Arrays.copyOf(to, to.length));
+    }
+
+    private static final class Offset extends Retiming {
+
+        private final int milliseconds;
+
+        Offset(int milliseconds) {
+            this.milliseconds = milliseconds;
+        }
+
+        @Override
+        public int apply(int milliseconds) {
+            return milliseconds + this.milliseconds;
+        }
+
+    }
+
+    private static final class Scale extends Retiming {
+
+        private final double factor;
+
+        Scale(double factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public int apply(int milliseconds) {
+            return (int) Math.round(milliseconds * factor);
+        }
+
+    }
+
+    private static final class SyncMap extends Retiming {
+
+        private final int[] from;
+        private final int[] to;
+
+        SyncMap(int[] from, int[] to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int apply(int milliseconds) {
+            int last = from.length - 1;
+            if (milliseconds <= from[0]) {
+                return milliseconds + to[0] - from[0];
+            }
+            if (milliseconds >= from[last]) {
+                return milliseconds + to[last] - from[last];
+            }
+            //the segment from[i - 1] < milliseconds <= from[i]
+            int i = Arrays.binarySearch(from, milliseconds);
+            if (i >= 0) {
+                return to[i];
+            }
+            i = -i - 1;
+            double fraction = (double) (milliseconds - from[i - 1]) / (from[i] - from[i - 1]);
+            return to[i - 1] + (int) Math.round(fraction * (to[i] - to[i - 1]));
+        }
+
+    }
+
+    private static final class Chain extends Retiming {
+
+        private final Retiming first;
+        private final Retiming second;
+
+        Chain(Retiming first, Retiming second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int apply(int milliseconds) {
+            return second.apply(first.apply(milliseconds));
+        }
+
+    }
+
+}
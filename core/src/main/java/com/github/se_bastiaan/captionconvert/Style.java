@@ -16,9 +16,11 @@
 
 package com.github.se_bastiaan.captionconvert;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Style {
 
-    private static int styleCounter;
+    private static final AtomicInteger styleCounter = new AtomicInteger();
 
     /**
      * Constructor that receives a String to use a its identifier
@@ -115,18 +117,18 @@ public class Style {
         } else if (format.equalsIgnoreCase("&HBBGGRR")) {
             //hex format from SSA
             StringBuilder sb = new StringBuilder();
-            sb.append(value.substring(6));
-            sb.append(value.substring(4, 5));
-            sb.append(value.substring(2, 3));
+            sb.append(value.substring(6, 8));
+            sb.append(value.substring(4, 6));
+            sb.append(value.substring(2, 4));
             sb.append("ff");
             color = sb.toString();
         } else if (format.equalsIgnoreCase("&HAABBGGRR")) {
             //hex format from ASS
             StringBuilder sb = new StringBuilder();
-            sb.append(value.substring(8));
-            sb.append(value.substring(6, 7));
-            sb.append(value.substring(4, 5));
-            sb.append(value.substring(2, 3));
+            sb.append(value.substring(8, 10));
+            sb.append(value.substring(6, 8));
+            sb.append(value.substring(4, 6));
+            sb.append(value.substring(2, 4));
             color = sb.toString();
         } else if (format.equalsIgnoreCase("decimalCodedBBGGRR")) {
             //normal format from SSA
@@ -147,7 +149,7 @@ public class Style {
     }
 
     static String defaultID() {
-        return "default" + styleCounter++;
+        return "default" + styleCounter.getAndIncrement();
     }
 
     @Override
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * The styles of a {@link TimedTextObject} as the binary forms store them, {@link BinaryCodec} and
+ * {@link CaptionArchive}: every style once and referred to by its position, together with the flags
+ * both forms use.
+ */
+final class StyleTable {
+
+    //flags of the object
+    static final int ASS = 1;
+    static final int BUILT = 2;
+
+    //flags of a style
+    static final int ITALIC = 1;
+    static final int BOLD = 2;
+    static final int UNDERLINE = 4;
+    static final int IN_STYLING = 8;
+
+    private final ArrayList<Style> styles;
+    private final IdentityHashMap<Style, Integer> index = new IdentityHashMap<>();
+    //the styles before this position are the ones in styling
+    private final int inStyling;
+
+    /**
+     * Lists the styles in styling, followed by the ones captions use without them being in styling.
+     *
+     * @param tto the object to list the styles of
+     */
+    StyleTable(TimedTextObject tto) {
+        styles = new ArrayList<>(tto.styling.values());
+        for (Style style : styles) {
+            index.put(style, index.size());
+        }
+        inStyling = styles.size();
+        for (Caption caption : tto.captions) {
+            if (caption.style != null && !index.containsKey(caption.style)) {
+                index.put(caption.style, styles.size());
+                styles.add(caption.style);
+            }
+        }
+    }
+
+    int size() {
+        return styles.size();
+    }
+
+    Style get(int position) {
+        return styles.get(position);
+    }
+
+    /**
+     * @return the position of the style, or -1 for null
+     */
+    int indexOf(Style style) {
+        return style == null ? -1 : index.get(style);
+    }
+
+    /**
+     * @return the flags of the style at the given position
+     */
+    int flags(int position) {
+        Style style = styles.get(position);
+        return (style.italic ? ITALIC : 0) | (style.bold ? BOLD : 0) | (style.underline ? UNDERLINE : 0)
+                | (position < inStyling ? IN_STYLING : 0);
+    }
+
+    static int flags(TimedTextObject tto) {
+        return (tto.useASSInsteadOfSSA ? ASS : 0) | (tto.built ? BUILT : 0);
+    }
+
+    static void setFlags(TimedTextObject tto, int flags) {
+        tto.useASSInsteadOfSSA = (flags & ASS) != 0;
+        tto.built = (flags & BUILT) != 0;
+    }
+
+    /**
+     * Sets italic, bold and underline, whether the style goes in styling is up to the caller.
+     */
+    static void setFlags(Style style, int flags) {
+        style.italic = (flags & ITALIC) != 0;
+        style.bold = (flags & BOLD) != 0;
+        style.underline = (flags & UNDERLINE) != 0;
+    }
+
+}
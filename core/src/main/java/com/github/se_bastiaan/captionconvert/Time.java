@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+public class Time {
+
+    // in an integer we can store 24 days worth of milliseconds, no need for a long
+    private int milliseconds;
+
+    /**
+     * Constructor to create a time object.
+     *
+     * @param milliseconds the time in milliseconds
+     */
+    public Time(int milliseconds) {
+        this.milliseconds = milliseconds;
+    }
+
+    /**
+     * Constructor to create a time object.
+     *
+     * @param format the format the value is written in
+     * @param value  characters holding the time
+     * @throws NumberFormatException when the value is not written in the given format
+     */
+    public Time(TimeFormat format, CharSequence value) {
+        milliseconds = format.parse(value);
+    }
+
+    /**
+     * Constructor to create a time object.
+     *
+     * @param format supported formats: "hh:mm:ss,ms", "hh:mm:ss.ms", "h:mm:ss.cs" and "h:m:s:f/fps",
+     *               any other format results in a time of zero
+     * @param value  string in the correct format
+     */
+    public Time(String format, String value) {
+        if (format.equalsIgnoreCase("h:m:s:f/fps")) {
+            // the frame rate comes with the value:  1:2:22:12/25
+            int slash = value.indexOf('/');
+            TimeFormat frames = TimeFormat.forPattern("h:m:s:f" + value.substring(slash));
+            milliseconds = frames.parse(value, 0, slash);
+        } else {
+            TimeFormat timeFormat = TimeFormat.forPattern(format);
+            if (timeFormat != null) {
+                milliseconds = timeFormat.parse(value);
+            }
+        }
+    }
+
+    /**
+     * Method to return a formatted value of the time stored
+     *
+     * @param format the format to write the time in
+     * @return formatted time in a string
+     */
+    public String getTime(TimeFormat format) {
+        return format.format(milliseconds);
+    }
+
+    /**
+     * Writes the time stored into the given buffer, without creating any objects.
+     *
+     * @param format the format to write the time in
+     * @param buffer buffer to write to, {@link TimeFormat#MAX_LENGTH} characters from the offset are always enough
+     * @param offset index to write the first character at
+     * @return the index after the last character written
+     */
+    public int getTime(TimeFormat format, char[] buffer, int offset) {
+        return format.format(milliseconds, buffer, offset);
+    }
+
+    /**
+     * Method to return a formatted value of the time stored
+     *
+     * @param format supported formats: "hh:mm:ss,ms", "hh:mm:ss.ms", "h:mm:ss.cs", "hhmmssff/fps", "h:m:s:f/fps" and "hh:mm:ss:ff/fps"
+     * @return formatted time in a string, empty if the format is not supported
+     */
+    protected String getTime(String format) {
+        TimeFormat timeFormat = TimeFormat.forPattern(format);
+        if (timeFormat == null) {
+            return "";
+        }
+        return timeFormat.format(milliseconds);
+    }
+
+    public void setMilliseconds(int milliseconds) {
+        this.milliseconds = milliseconds;
+    }
+
+    public int getMilliseconds() {
+        return milliseconds;
+    }
+
+}
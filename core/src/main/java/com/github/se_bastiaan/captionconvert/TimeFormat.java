@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+/**
+ * Codec for one way of writing down a time. Instances are immutable and can be shared, they parse
+ * straight from a range of a {@link CharSequence} and format straight into a {@link StringBuilder}
+ * or a caller supplied char[], without creating temporary objects.
+ */
+public abstract class TimeFormat {
+
+    /**
+     * Number of characters that is always enough to format any time with any of the codecs
+     */
+    public static final int MAX_LENGTH = 16;
+
+    /**
+     * hh:mm:ss,ms, as in 01:02:22,501 (used in .SRT)
+     */
+    public static final TimeFormat SRT_MS = new Clock(2, ',', 3);
+
+    /**
+     * hh:mm:ss.ms, as in 01:02:22.501 (used in .VTT and .TTML)
+     */
+    public static final TimeFormat VTT_MS = new Clock(2, '.', 3);
+
+    /**
+     * h:mm:ss.cs, as in 1:02:22.51 (used in .ASS/.SSA)
+     */
+    public static final TimeFormat ASS_CS = new Clock(1, '.', 2);
+
+    /**
+     * Returns a codec for frame based times, as in 01:02:22:12 (used in SCC)
+     *
+     * @param fps frames per second
+     * @return codec for hh:mm:ss:ff at the given frame rate
+     */
+    public static TimeFormat frames(float fps) {
+        return new Frames(fps, true, true);
+    }
+
+    /**
+     * Parses a time from the given range of characters.
+     *
+     * @param value characters holding the time
+     * @param start index of the first character of the time
+     * @param end   index after the last character of the time
+     * @return the time in milliseconds
+     * @throws NumberFormatException when the range does not hold a time in this format
+     */
+    public abstract int parse(CharSequence value, int start, int end);
+
+    /**
+     * Parses a time from the whole of the given characters.
+     *
+     * @param value characters holding the time
+     * @return the time in milliseconds
+     * @throws NumberFormatException when the value is not a time in this format
+     */
+    public int parse(CharSequence value) {
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Appends the given time in this format, negative times are written as zero.
+     *
+     * @param milliseconds time to write
+     * @param sb           builder to append to
+     */
+    public abstract void format(int milliseconds, StringBuilder sb);
+
+    /**
+     * Writes the given time in this format into the buffer, negative times are written as zero.
+     *
+     * @param milliseconds time to write
+     * @param buffer       buffer to write to, {@link #MAX_LENGTH} characters from the offset are always enough
+     * @param offset       index to write the first character at
+     * @return the index after the last character written
+     */
+    public abstract int format(int milliseconds, char[] buffer, int offset);
+
+    /**
+     * @param milliseconds time to write
+     * @return the given time in this format
+     */
+    public String format(int milliseconds) {
+        StringBuilder sb = new StringBuilder(16);
+        format(milliseconds, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Resolves the format strings used by {@link Time}.
+     *
+     * @param format supported formats: "hh:mm:ss,ms", "hh:mm:ss.ms", "h:mm:ss.cs", "hhmmssff/fps", "h:m:s:f/fps" and "hh:mm:ss:ff/fps"
+     * @return the matching codec or null if the format isn't supported
+     */
+    static TimeFormat forPattern(String format) {
+        if (format.equalsIgnoreCase("hh:mm:ss,ms")) {
+            return SRT_MS;
+        } else if (format.equalsIgnoreCase("hh:mm:ss.ms")) {
+            return VTT_MS;
+        } else if (format.equalsIgnoreCase("h:mm:ss.cs")) {
+            return ASS_CS;
+        } else if (format.startsWith("hhmmssff/")) {
+            //this format is used in EBU's STL
+            return new Frames(Float.parseFloat(format.substring(9)), false, true);
+        } else if (format.startsWith("h:m:s:f/")) {
+            //this format is used in EBU's STL
+            return new Frames(Float.parseFloat(format.substring(8)), true, false);
+        } else if (format.startsWith("hh:mm:ss:ff/")) {
+            //this format is used in SCC
+            return new Frames(Float.parseFloat(format.substring(12)), true, true);
+        }
+        return null;
+    }
+
+    static NumberFormatException invalid(CharSequence value, int start, int end) {
+        if (start < 0 || end > value.length() || start > end) {
+            return new NumberFormatException("Invalid time range: " + start + " to " + end);
+        }
+        return new NumberFormatException("Invalid time: \"" + value.subSequence(start, end) + "\"");
+    }
+
+    /**
+     * Appends value in decimal, padded with zeros up to the given number of digits.
+     */
+    static void appendDigits(StringBuilder sb, int value, int minDigits) {
+        int digits = 1;
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            sb.append('0');
+        }
+        while (divisor > 0) {
+            sb.append((char) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Writes value in decimal into the buffer, padded with zeros up to the given number of digits.
+     *
+     * @return the index after the last digit
+     */
+    static int writeDigits(char[] buffer, int offset, int value, int minDigits) {
+        int digits = 1;
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            buffer[offset++] = '0';
+        }
+        while (divisor > 0) {
+            buffer[offset++] = (char) ('0' + value / divisor % 10);
+            divisor /= 10;
+        }
+        return offset;
+    }
+
+    /**
+     * Clock times with a decimal fraction of a second, hours and the separator before the
+     * fraction vary between formats. Minutes and seconds are always written with two digits.
+     */
+    private static final class Clock extends TimeFormat {
+
+        private final int hourDigits;
+        private final char fractionSeparator;
+        private final int fractionDigits;
+
+        Clock(int hourDigits, char fractionSeparator, int fractionDigits) {
+            this.hourDigits = hourDigits;
+            this.fractionSeparator = fractionSeparator;
+            this.fractionDigits = fractionDigits;
+        }
+
+        @Override
+        public int parse(CharSequence value, int start, int end) {
+            if (start < 0 || end > value.length() || start >= end) {
+                throw invalid(value, start, end);
+            }
+
+            //[h:]m:s, hours may be left out
+            int seconds = 0;
+            int fields = 0;
+            int i = start;
+            char c;
+            do {
+                if (fields > 0) {
+                    //skip the colon
+                    i++;
+                }
+                int digits = 0;
+                int field = 0;
+                while (i < end && (c = value.charAt(i)) >= '0' && c <= '9') {
+                    field = field * 10 + (c - '0');
+                    digits++;
+                    i++;
+                }
+                if (digits == 0) {
+                    throw invalid(value, start, end);
+                }
+                seconds = seconds * 60 + field;
+                fields++;
+            } while (i < end && value.charAt(i) == ':' && fields < 3);
+            if (fields < 2) {
+                throw invalid(value, start, end);
+            }
+
+            //the fraction, any number of digits and both separators are accepted
+            int milliseconds = 0;
+            if (i < end) {
+                c = value.charAt(i++);
+                if (c != '.' && c != ',') {
+                    throw invalid(value, start, end);
+                }
+                int scale = 100;
+                int digits = 0;
+                while (i < end && (c = value.charAt(i)) >= '0' && c <= '9') {
+                    milliseconds += (c - '0') * scale;
+                    scale /= 10;
+                    digits++;
+                    i++;
+                }
+                if (digits == 0 || i != end) {
+                    throw invalid(value, start, end);
+                }
+            }
+
+            return seconds * 1000 + milliseconds;
+        }
+
+        @Override
+        public void format(int milliseconds, StringBuilder sb) {
+            if (milliseconds < 0) {
+                milliseconds = 0;
+            }
+            appendDigits(sb, milliseconds / 3600000, hourDigits);
+            sb.append(':');
+            appendDigits(sb, (milliseconds / 60000) % 60, 2);
+            sb.append(':');
+            appendDigits(sb, (milliseconds / 1000) % 60, 2);
+            sb.append(fractionSeparator);
+            if (fractionDigits == 3) {
+                appendDigits(sb, milliseconds % 1000, 3);
+            } else {
+                appendDigits(sb, (milliseconds / 10) % 100, 2);
+            }
+        }
+
+        @Override
+        public int format(int milliseconds, char[] buffer, int offset) {
+            if (milliseconds < 0) {
+                milliseconds = 0;
+            }
+            offset = writeDigits(buffer, offset, milliseconds / 3600000, hourDigits);
+            buffer[offset++] = ':';
+            offset = writeDigits(buffer, offset, (milliseconds / 60000) % 60, 2);
+            buffer[offset++] = ':';
+            offset = writeDigits(buffer, offset, (milliseconds / 1000) % 60, 2);
+            buffer[offset++] = fractionSeparator;
+            if (fractionDigits == 3) {
+                return writeDigits(buffer, offset, milliseconds % 1000, 3);
+            }
+            return writeDigits(buffer, offset, (milliseconds / 10) % 100, 2);
+        }
+
+    }
+
+    /**
+     * Times where the fraction of a second is given in frames.
+     */
+    private static final class Frames extends TimeFormat {
+
+        private final float fps;
+        private final boolean separated;
+        private final boolean padded;
+
+        Frames(float fps, boolean separated, boolean padded) {
+            this.fps = fps;
+            this.separated = separated;
+            this.padded = padded;
+        }
+
+        @Override
+        public int parse(CharSequence value, int start, int end) {
+            if (start < 0 || end > value.length() || start >= end) {
+                throw invalid(value, start, end);
+            }
+
+            //h, m and s are added up, f comes last
+            int seconds = 0;
+            int field = 0;
+            int i = start;
+            char c;
+            for (int f = 0; f < 4; f++) {
+                if (separated && f > 0) {
+                    if (i >= end || value.charAt(i) != ':') {
+                        throw invalid(value, start, end);
+                    }
+                    i++;
+                }
+                int digits = 0;
+                field = 0;
+                while (i < end && (c = value.charAt(i)) >= '0' && c <= '9' && (separated || digits < 2)) {
+                    field = field * 10 + (c - '0');
+                    digits++;
+                    i++;
+                }
+                if (digits == 0 || (!separated && digits != 2)) {
+                    throw invalid(value, start, end);
+                }
+                if (f < 3) {
+                    seconds = seconds * 60 + field;
+                }
+            }
+            if (i != end) {
+                throw invalid(value, start, end);
+            }
+
+            return (int) (field * 1000 / fps) + seconds * 1000;
+        }
+
+        @Override
+        public void format(int milliseconds, StringBuilder sb) {
+            if (milliseconds < 0) {
+                milliseconds = 0;
+            }
+            int minDigits = padded ? 2 : 1;
+            appendDigits(sb, milliseconds / 3600000, minDigits);
+            if (separated) sb.append(':');
+            appendDigits(sb, (milliseconds / 60000) % 60, minDigits);
+            if (separated) sb.append(':');
+            appendDigits(sb, (milliseconds / 1000) % 60, minDigits);
+            if (separated) sb.append(':');
+            appendDigits(sb, (milliseconds % 1000) * (int) fps / 1000, minDigits);
+        }
+
+        @Override
+        public int format(int milliseconds, char[] buffer, int offset) {
+            if (milliseconds < 0) {
+                milliseconds = 0;
+            }
+            int minDigits = padded ? 2 : 1;
+            offset = writeDigits(buffer, offset, milliseconds / 3600000, minDigits);
+            if (separated) buffer[offset++] = ':';
+            offset = writeDigits(buffer, offset, (milliseconds / 60000) % 60, minDigits);
+            if (separated) buffer[offset++] = ':';
+            offset = writeDigits(buffer, offset, (milliseconds / 1000) % 60, minDigits);
+            if (separated) buffer[offset++] = ':';
+            return writeDigits(buffer, offset, (milliseconds % 1000) * (int) fps / 1000, minDigits);
+        }
+
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * This class specifies the interface for any format supported by the converter, these formats must
+ * create a {@link com.github.se_bastiaan.captionconvert.TimedTextObject} from an {@link java.io.InputStream} (so it can process files form standard In or uploads)
+ * and return a String array for text formats, or byte array for binary formats.
+ * <br><br>
+ * Formats keep no state between calls, so a single instance can be used by any number of threads
+ * at once. {@link Formats} holds one of each.
+ * <br><br>
+ * Copyright (c) 2012 J. David Requejo <br>
+ * j[dot]david[dot]requejo[at] Gmail
+ * <br><br>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ * <br><br>
+ * The above copyright notice and this permission notice shall be included in all copies
+ * or substantial portions of the Software.
+ * <br><br>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * @author J. David Requejo
+ */
+public abstract class TimedTextFileFormat {
+
+    private static final String ARROW = " --> ";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * This methods parses the lines of a subtitle file and reports everything it finds to the given
+     * handler as it goes, without building a TimedTextObject.
+     *
+     * @param fileName String that contains the path to the file
+     * @param lines source of the lines of the subtitle file
+     * @param handler receiver of the styles, captions and warnings found in the file
+     * @throws java.io.IOException when having trouble reading the lines from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public abstract void parse(String fileName, LineReader lines, CaptionHandler handler) throws IOException, ParsingException;
+
+    /**
+     * Parses the subtitle file while reading it from the given source, see {@link #parse(String, LineReader, CaptionHandler)}.
+     *
+     * @param fileName String that contains the path to the file
+     * @param reader source of the subtitle text, it is not closed by this method
+     * @param handler receiver of the styles, captions and warnings found in the file
+     * @throws java.io.IOException when having trouble reading from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public void parse(String fileName, Reader reader, CaptionHandler handler) throws IOException, ParsingException {
+        parse(fileName, LineReader.of(reader), handler);
+    }
+
+    /**
+     * Parses the subtitle file while reading it from the given UTF-8 encoded stream, see {@link #parse(String, LineReader, CaptionHandler)}.
+     *
+     * @param fileName String that contains the path to the file
+     * @param is source of the subtitle file, it is not closed by this method
+     * @param handler receiver of the styles, captions and warnings found in the file
+     * @throws java.io.IOException when having trouble reading from the given stream
+     * @throws ParsingException when parsing failed
+     */
+    public void parse(String fileName, InputStream is, CaptionHandler handler) throws IOException, ParsingException {
+        parse(fileName, new InputStreamReader(is, UTF_8), handler);
+    }
+
+    /**
+     * This methods receives the path to a file, parses it, and returns a TimedTextObject
+     *
+     * @param fileName String that contains the path to the file
+     * @param lines source of the lines of the subtitle file
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading the lines from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, LineReader lines) throws IOException, ParsingException {
+        return parseFile(fileName, lines, new Diagnostics(Diagnostics.Level.FIRST_N));
+    }
+
+    /**
+     * This methods receives the path to a file, parses it, and returns a TimedTextObject
+     *
+     * @param fileName String that contains the path to the file
+     * @param lines source of the lines of the subtitle file
+     * @param diagnostics receiver of the warnings, it becomes the diagnostics of the result
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading the lines from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, LineReader lines, Diagnostics diagnostics) throws IOException, ParsingException {
+        TimedTextObjectBuilder builder = new TimedTextObjectBuilder(fileName, diagnostics);
+        parse(fileName, lines, builder);
+        return builder.build();
+    }
+
+    public TimedTextObject parseFile(String fileName, String[] inputString) throws IOException, ParsingException {
+        return parseFile(fileName, LineReader.of(inputString));
+    }
+
+    public TimedTextObject parseFile(String fileName, String inputString) throws IOException, ParsingException {
+        return parseFile(fileName, new StringReader(inputString));
+    }
+
+    /**
+     * Parses the subtitle file while reading it line by line from the given source.
+     *
+     * @param fileName String that contains the path to the file
+     * @param reader source of the subtitle text, it is not closed by this method
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, Reader reader) throws IOException, ParsingException {
+        return parseFile(fileName, reader, new Diagnostics(Diagnostics.Level.FIRST_N));
+    }
+
+    /**
+     * Parses the subtitle file while reading it line by line from the given source.
+     *
+     * @param fileName String that contains the path to the file
+     * @param reader source of the subtitle text, it is not closed by this method
+     * @param diagnostics receiver of the warnings, it becomes the diagnostics of the result
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading from the given source
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, Reader reader, Diagnostics diagnostics) throws IOException, ParsingException {
+        TimedTextObjectBuilder builder = new TimedTextObjectBuilder(fileName, diagnostics);
+        parse(fileName, reader, builder);
+        return builder.build();
+    }
+
+    /**
+     * Parses the subtitle file while reading it line by line from the given UTF-8 encoded stream.
+     *
+     * @param fileName String that contains the path to the file
+     * @param is source of the subtitle file, it is not closed by this method
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading from the given stream
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, InputStream is) throws IOException, ParsingException {
+        return parseFile(fileName, new InputStreamReader(is, UTF_8));
+    }
+
+    /**
+     * Parses the subtitle file while reading it line by line from the given UTF-8 encoded stream.
+     *
+     * @param fileName String that contains the path to the file
+     * @param is source of the subtitle file, it is not closed by this method
+     * @param diagnostics receiver of the warnings, it becomes the diagnostics of the result
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading from the given stream
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(String fileName, InputStream is, Diagnostics diagnostics) throws IOException, ParsingException {
+        return parseFile(fileName, new InputStreamReader(is, UTF_8), diagnostics);
+    }
+
+    /**
+     * Parses a UTF-8 encoded file on disk, reporting everything it finds to the given handler.
+     * Formats that can read the bytes of the file directly override this.
+     *
+     * @param file the subtitle file
+     * @param handler receiver of the styles, captions and warnings found in the file
+     * @throws java.io.IOException when having trouble reading the file
+     * @throws ParsingException when parsing failed
+     */
+    public void parse(File file, CaptionHandler handler) throws IOException, ParsingException {
+        InputStream is = new FileInputStream(file);
+        try {
+            parse(file.getPath(), is, handler);
+        } finally {
+            is.close();
+        }
+    }
+
+    public TimedTextObject parseFile(File file) throws IOException, ParsingException {
+        return parseFile(file, new Diagnostics(Diagnostics.Level.FIRST_N));
+    }
+
+    /**
+     * Parses a UTF-8 encoded file on disk.
+     *
+     * @param file the subtitle file
+     * @param diagnostics receiver of the warnings, it becomes the diagnostics of the result
+     * @return TimedTextObject representing the parsed file
+     * @throws java.io.IOException when having trouble reading the file
+     * @throws ParsingException when parsing failed
+     */
+    public TimedTextObject parseFile(File file, Diagnostics diagnostics) throws IOException, ParsingException {
+        TimedTextObjectBuilder builder = new TimedTextObjectBuilder(file.getPath(), diagnostics);
+        parse(file, builder);
+        return builder.build();
+    }
+
+    /**
+     * Maps a whole file into memory, read only. The mapping stays valid after this returns and is
+     * released once the buffer is garbage collected.
+     *
+     * @param file the file to map
+     * @return the contents of the file
+     * @throws java.io.IOException when the file can't be read or is too large to map
+     */
+    protected static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map: " + size + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * This method transforms a given TimedTextObject into a formated subtitle file
+     *
+     * @param tto the object to transform into a file
+     * @return NULL if the given TimedTextObject has not been built first,
+     * or String[] where each String is at least a line, if size is 2, then the file has at least two lines.
+     * or byte[] in case the file is a binary (as is the case of STL format)
+     */
+    public abstract Object toFile(TimedTextObject tto);
+
+    /**
+     * This method writes a given TimedTextObject as a formated subtitle file to the given sink,
+     * caption by caption, without keeping the lines of the file in memory.
+     *
+     * @param tto the object to write
+     * @param out sink for the file, each line is terminated by a '\n', it is not flushed nor closed by this method
+     * @return false if the given TimedTextObject has not been built first and nothing was written, true otherwise
+     * @throws java.io.IOException when having trouble writing to the sink
+     */
+    public boolean write(TimedTextObject tto, Appendable out) throws IOException {
+        return write(tto, Retiming.offset(tto.offset), out);
+    }
+
+    /**
+     * Writes a given TimedTextObject like {@link #write(TimedTextObject, Appendable)} does, changing the
+     * times of the captions on the way out. The captions themselves are left untouched, so the same
+     * object can be written by several threads at once, each with its own retiming.
+     *
+     * @param tto      the object to write
+     * @param retiming applied to every time written, instead of {@link TimedTextObject#offset}
+     * @param out      sink for the file, each line is terminated by a '\n', it is not flushed nor closed by this method
+     * @return false if the given TimedTextObject has not been built first and nothing was written, true otherwise
+     * @throws java.io.IOException when having trouble writing to the sink
+     */
+    public abstract boolean write(TimedTextObject tto, Retiming retiming, Appendable out) throws IOException;
+
+    /**
+     * Writes the given TimedTextObject into memory and splits the result into lines,
+     * used by the formats to implement {@link #toFile(TimedTextObject)}.
+     *
+     * @param tto the object to transform into lines
+     * @return NULL if the given TimedTextObject has not been built first, or the lines of the file
+     */
+    protected String[] writeLines(TimedTextObject tto) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            if (!write(tto, sb)) {
+                return null;
+            }
+        } catch (IOException e) {
+            //a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+
+        ArrayList<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < sb.length(); i++) {
+            if (sb.charAt(i) == '\n') {
+                lines.add(sb.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (start < sb.length()) {
+            lines.add(sb.substring(start));
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    /**
+     * Writes one numbered cue the way SRT and VTT both do: the number, the timing line, the text
+     * lines and a blank line.
+     *
+     * @param out      sink to write to
+     * @param buffer   scratch space of at least 64 characters, reused between cues
+     * @param number   the number of the cue
+     * @param caption  the caption to write
+     * @param format   the format of the timestamps
+     * @param retiming applied to the start and end time
+     * @throws java.io.IOException when having trouble writing to the sink
+     */
+    static void writeNumberedCue(Appendable out, char[] buffer, int number, Caption caption, TimeFormat format, Retiming retiming) throws IOException {
+        //number is written
+        int length = TimeFormat.writeDigits(buffer, 0, number, 1);
+        buffer[length++] = '\n';
+        //time is written, with the retiming applied
+        length = format.format(retiming.apply(caption.start.getMilliseconds()), buffer, length);
+        ARROW.getChars(0, ARROW.length(), buffer, length);
+        length += ARROW.length();
+        length = format.format(retiming.apply(caption.end.getMilliseconds()), buffer, length);
+        buffer[length++] = '\n';
+        append(out, buffer, length);
+        //text is added, clean of XML and with its line breaks
+        Markup.appendLines(out, caption.getContent());
+        //we add the next blank line
+        out.append('\n');
+    }
+
+    /**
+     * Reads the numbered cues SRT and VTT both consist of: a number, a timing line, the text lines
+     * and a blank line. The last cue of the input needs no blank line after it.
+     *
+     * @param lines   the lines to read
+     * @param format  the format of the timestamps
+     * @param handler receives the captions and the warnings
+     * @throws java.io.IOException when having trouble reading the input
+     */
+    static void parseNumberedCues(LineReader lines, TimeFormat format, CaptionHandler handler) throws IOException {
+        Caption caption = new Caption();
+        int captionNumber = 1;
+        boolean allGood;
+
+        int lineCounter = 0;
+        int captionIndex = 0;
+        StringBuilder text = new StringBuilder();
+        String line = lines.next();
+        if (line == null) {
+            return;
+        }
+        while (lines.hasNext()) {
+            line = line.trim();
+            lineCounter++;
+            //if its a blank line, ignore it, otherwise...
+            if (!line.isEmpty()) {
+                allGood = false;
+                //the first thing should be an increasing number
+                try {
+                    int num = Integer.parseInt(line);
+                    if (num != captionNumber)
+                        throw new Exception();
+                    else {
+                        captionNumber++;
+                        allGood = true;
+                    }
+                } catch (Exception e) {
+                    handler.onWarning(Diagnostic.Code.CAPTION_NUMBER_EXPECTED, lineCounter, captionIndex, line);
+                }
+
+                if (allGood) {
+                    //we go to next line, here the begin and end time should be found
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break;
+                    }
+                    try {
+                        parseTimingLine(line, format, caption);
+                    } catch (Exception e) {
+                        handler.onWarning(Diagnostic.Code.INVALID_TIME_FORMAT, lineCounter, captionIndex, line);
+                        allGood = false;
+                    }
+                }
+
+                if (allGood) {
+                    //we go to next line where the caption text starts
+                    lineCounter++;
+                    line = nextTrimmed(lines);
+                    if (line == null) {
+                        break;
+                    }
+                    text.setLength(0);
+                    while (!line.isEmpty() && lines.hasNext()) {
+                        text.append(line).append("<br />");
+                        line = lines.next().trim();
+                        lineCounter++;
+                    }
+                    //the last line of the file has no blank line after it
+                    if (!line.isEmpty()) {
+                        text.append(line).append("<br />");
+                    }
+                    caption.content = text.toString();
+                    //we add the caption.
+                    handler.onCaption(caption);
+                    captionIndex++;
+                }
+
+                //we go to next blank
+                while (!line.isEmpty() && lines.hasNext()) {
+                    line = lines.next().trim();
+                    lineCounter++;
+                }
+
+                caption = new Caption();
+            }
+
+            if (lines.hasNext()) {
+                line = lines.next();
+            }
+        }
+        //the input ended in the middle of a caption
+        if (line == null) {
+            handler.onWarning(Diagnostic.Code.UNEXPECTED_END_OF_FILE, lineCounter, captionIndex, null);
+        }
+    }
+
+    /**
+     * Reads the next line without its surrounding whitespace.
+     *
+     * @param lines the lines to read from
+     * @return the trimmed line, or null at the end of the input
+     * @throws java.io.IOException when having trouble reading the input
+     */
+    static String nextTrimmed(LineReader lines) throws IOException {
+        String line = lines.next();
+        return line == null ? null : line.trim();
+    }
+
+    /**
+     * Appends the first characters of the buffer to the sink, without wrapping them in a String
+     * whenever the sink can take a char[] directly.
+     *
+     * @param out    sink to append to
+     * @param buffer characters to append
+     * @param length number of characters to append
+     * @throws java.io.IOException when having trouble writing to the sink
+     */
+    protected static void append(Appendable out, char[] buffer, int length) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(buffer, 0, length);
+        } else if (out instanceof Writer) {
+            ((Writer) out).write(buffer, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                out.append(buffer[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a "start --&gt; end" timing line, as used by SRT and VTT, into the given caption.
+     * Anything following the end time, such as VTT cue settings, is ignored.
+     *
+     * @param line    the trimmed timing line
+     * @param format  the format both times are written in
+     * @param caption caption to set the start and end of
+     * @throws NumberFormatException when the line does not hold two times in the given format
+     */
+    protected static void parseTimingLine(String line, TimeFormat format, Caption caption) {
+        parseTimingLine(line, 0, line.length(), format, caption);
+    }
+
+    /**
+     * Reads a "start --&gt; end" timing line from line[start, end) into the given caption.
+     *
+     * @param line    characters holding the timing line
+     * @param start   index of the first character of the trimmed line
+     * @param end     index after the last character of the trimmed line
+     * @param format  the format both times are written in
+     * @param caption caption to set the start and end of
+     * @throws NumberFormatException when the line does not hold two times in the given format
+     */
+    static void parseTimingLine(CharSequence line, int start, int end, TimeFormat format, Caption caption) {
+        int arrow = start;
+        while (arrow + 3 <= end && !(line.charAt(arrow) == '-' && line.charAt(arrow + 1) == '-' && line.charAt(arrow + 2) == '>')) {
+            arrow++;
+        }
+        if (arrow + 3 > end) {
+            throw new NumberFormatException("--> expected in \"" + line.subSequence(start, end) + "\"");
+        }
+        int startEnd = arrow;
+        while (startEnd > start && line.charAt(startEnd - 1) <= ' ') startEnd--;
+        int endStart = arrow + 3;
+        while (endStart < end && line.charAt(endStart) <= ' ') endStart++;
+        int endEnd = endStart;
+        while (endEnd < end && line.charAt(endEnd) > ' ') endEnd++;
+
+        caption.start = new Time(format.parse(line, start, startEnd));
+        caption.end = new Time(format.parse(line, endStart, endEnd));
+    }
+
+    protected String join(String[] s, String glue) {
+        if (s.length == 0)
+            return null;
+        StringBuilder sb = new StringBuilder();
+        sb.append(s[0]);
+        for (int x = 1; x < s.length; ++x) {
+            sb.append(glue).append(s[x]);
+        }
+        return sb.toString();
+    }
+
+}
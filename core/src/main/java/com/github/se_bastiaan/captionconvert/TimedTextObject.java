@@ -16,8 +16,10 @@
 
 package com.github.se_bastiaan.captionconvert;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
-import java.util.TreeMap;
 
 /**
  * These objects can (should) only be created through the implementations of parseFile() in the {@link TimedTextFileFormat} interface
@@ -55,12 +57,14 @@ public class TimedTextObject {
 
     public Hashtable<String, Style> styling;
 
-    public TreeMap<Integer, Caption> captions;
+    public Captions captions;
 
-    public String warnings;
+    //non fatal errors produced during parsing
+    public Diagnostics diagnostics;
 
     public boolean useASSInsteadOfSSA = true;
     public boolean built = false;
+    //milliseconds added to every time when the object is written, see Retiming for more than a delay
     public int offset = 0;
 
     /**
@@ -68,9 +72,8 @@ public class TimedTextObject {
      */
     public TimedTextObject() {
         styling = new Hashtable<>();
-        captions = new TreeMap<>();
-
-        warnings = "List of non fatal errors produced during parsing:\n\n";
+        captions = new Captions();
+        diagnostics = new Diagnostics(Diagnostics.Level.FIRST_N);
     }
 
     /**
@@ -79,7 +82,7 @@ public class TimedTextObject {
      * @return an array of strings where each String represents a line
      */
     public String[] toSRT() {
-        return new FormatSRT().toFile(this);
+        return Formats.SRT.toFile(this);
     }
 
 
@@ -89,7 +92,7 @@ public class TimedTextObject {
      * @return an array of strings where each String represents a line
      */
     public String[] toASS() {
-        return new FormatASS().toFile(this);
+        return Formats.ASS.toFile(this);
     }
 
     /**
@@ -98,7 +101,30 @@ public class TimedTextObject {
      * @return an array of strings where each String represents a line
      */
     public String[] toVTT() {
-        return new FormatVTT().toFile(this);
+        return Formats.VTT.toFile(this);
+    }
+
+    /**
+     * Writes this object in a compact binary form that {@link #readFrom(ByteBuffer)} loads without
+     * parsing any text. Diagnostics and the order of the styling are not kept.
+     *
+     * @param out destination of the bytes, it is not flushed nor closed by this method
+     * @throws java.io.IOException when having trouble writing
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        BinaryCodec.write(this, out);
+    }
+
+    /**
+     * Loads an object written by {@link #writeTo(OutputStream)}, reading from the position of the
+     * buffer and leaving it after the object.
+     *
+     * @param in the bytes to read
+     * @return the object that was written
+     * @throws ParsingException when the bytes are not a binary TimedTextObject of a supported version
+     */
+    public static TimedTextObject readFrom(ByteBuffer in) throws ParsingException {
+        return BinaryCodec.read(in);
     }
 
     /**
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+/**
+ * {@link CaptionHandler} that collects everything it receives into a {@link TimedTextObject}.
+ */
+public class TimedTextObjectBuilder implements CaptionHandler {
+
+    private final TimedTextObject tto;
+
+    public TimedTextObjectBuilder(String fileName) {
+        this(fileName, new Diagnostics(Diagnostics.Level.FIRST_N));
+    }
+
+    /**
+     * @param fileName    name saved in the resulting object
+     * @param diagnostics receiver of the warnings, it becomes the diagnostics of the resulting object
+     */
+    public TimedTextObjectBuilder(String fileName, Diagnostics diagnostics) {
+        tto = new TimedTextObject();
+        //the file name is saved
+        tto.fileName = fileName;
+        tto.diagnostics = diagnostics;
+    }
+
+    @Override
+    public void onMetadata(String name, String value) {
+        if (TITLE.equals(name)) {
+            tto.title = value;
+        } else if (AUTHOR.equals(name)) {
+            tto.author = value;
+        } else if (COPYRIGHT.equals(name)) {
+            tto.copyright = value;
+        } else if (DESCRIPTION.equals(name)) {
+            tto.description = value;
+        }
+    }
+
+    @Override
+    public void onStyle(Style style) {
+        tto.styling.put(style.id, style);
+    }
+
+    @Override
+    public void onCaption(Caption caption) {
+        //captions with the same start time are kept in the order they were found
+        tto.captions.add(caption);
+    }
+
+    @Override
+    public void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail) {
+        tto.diagnostics.report(code, line, captionIndex, detail);
+    }
+
+    /**
+     * @return the TimedTextObject holding everything received so far, marked as built
+     */
+    public TimedTextObject build() {
+        tto.built = true;
+        return tto;
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts a file from one format into another. For most pairs this parses the file into a
+ * {@link TimedTextObject} and writes that, the common pairs SRT to VTT, VTT to SRT and ASS to SRT
+ * or VTT have streaming converters instead, which write every caption as soon as it is parsed.
+ * <br><br>
+ * Use {@link #forFormats(TimedTextFileFormat, TimedTextFileFormat)} to get the best transcoder for a
+ * pair, more can be added with {@link #register(Class, Class, Transcoder)}. Transcoders keep no
+ * state between calls and can be used from several threads at once.
+ */
+public abstract class Transcoder {
+
+    private static final ConcurrentHashMap<Pair, Transcoder> registry = new ConcurrentHashMap<>();
+
+    static {
+        register(FormatSRT.class, FormatVTT.class, new Streaming(Formats.SRT, "WEBVTT\n\n", TimeFormat.VTT_MS));
+        register(FormatVTT.class, FormatSRT.class, new Streaming(Formats.VTT, "", TimeFormat.SRT_MS));
+        register(FormatASS.class, FormatSRT.class, new Streaming(Formats.ASS, "", TimeFormat.SRT_MS));
+        register(FormatASS.class, FormatVTT.class, new Streaming(Formats.ASS, "WEBVTT\n\n", TimeFormat.VTT_MS));
+    }
+
+    /**
+     * Converts a file, writing the result to the given sink. When an exception is thrown part of the
+     * result may already have been written.
+     *
+     * @param fileName    name of the file, as passed to parseFile
+     * @param reader      the file to convert, it is not closed by this method
+     * @param out         sink for the converted file, it is not flushed nor closed by this method
+     * @param retiming    applied to every time written
+     * @param diagnostics receiver of the warnings found while parsing
+     * @throws java.io.IOException when having trouble reading the file or writing the result
+     * @throws ParsingException when parsing failed
+     */
+    public abstract void transcode(String fileName, Reader reader, Appendable out, Retiming retiming, Diagnostics diagnostics) throws IOException, ParsingException;
+
+    /**
+     * Converts a file without changing its times, see {@link #transcode(String, Reader, Appendable, Retiming, Diagnostics)}.
+     */
+    public void transcode(String fileName, Reader reader, Appendable out, Diagnostics diagnostics) throws IOException, ParsingException {
+        transcode(fileName, reader, out, Retiming.NONE, diagnostics);
+    }
+
+    /**
+     * @param from format of the files to convert
+     * @param to   format to convert them to
+     * @return the transcoder registered for the classes of the formats, or one parsing and writing
+     * the file when there is none
+     */
+    public static Transcoder forFormats(TimedTextFileFormat from, TimedTextFileFormat to) {
+        Transcoder transcoder = registry.get(new Pair(from.getClass(), to.getClass()));
+        return transcoder != null ? transcoder : generic(from, to);
+    }
+
+    /**
+     * @param from format of the files to convert
+     * @param to   format to convert them to
+     * @return a transcoder parsing the file into a {@link TimedTextObject} and writing that
+     */
+    public static Transcoder generic(TimedTextFileFormat from, TimedTextFileFormat to) {
+        return new Generic(from, to);
+    }
+
+    /**
+     * Sets the transcoder to use for a pair of formats, replacing the one registered before.
+     *
+     * @param from       class of the format of the files to convert
+     * @param to         class of the format to convert them to
+     * @param transcoder the transcoder to use
+     */
+    public static void register(Class<? extends TimedTextFileFormat> from, Class<? extends TimedTextFileFormat> to, Transcoder transcoder) {
+        registry.put(new Pair(from, to), transcoder);
+    }
+
+    private static final class Generic extends Transcoder {
+
+        private final TimedTextFileFormat from;
+        private final TimedTextFileFormat to;
+
+        Generic(TimedTextFileFormat from, TimedTextFileFormat to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void transcode(String fileName, Reader reader, Appendable out, Retiming retiming, Diagnostics diagnostics) throws IOException, ParsingException {
+            to.write(from.parseFile(fileName, reader, diagnostics), retiming, out);
+        }
+
+    }
+
+    /**
+     * Writes numbered cues, as SRT and VTT have them, while the file is being parsed.
+     */
+    private static final class Streaming extends Transcoder {
+
+        private final TimedTextFileFormat from;
+        private final String header;
+        private final TimeFormat format;
+
+        Streaming(TimedTextFileFormat from, String header, TimeFormat format) {
+            this.from = from;
+            this.header = header;
+            this.format = format;
+        }
+
+        @Override
+        public void transcode(String fileName, Reader reader, Appendable out, Retiming retiming, Diagnostics diagnostics) throws IOException, ParsingException {
+            out.append(header);
+            CueWriter writer = new CueWriter(out, format, retiming, diagnostics);
+            try {
+                from.parse(fileName, reader, writer);
+                writer.flush();
+            } catch (WriteFailure e) {
+                throw (IOException) e.getCause();
+            }
+        }
+
+    }
+
+    /**
+     * Writes the captions it receives in order of start time, like {@link Captions} orders them. Captions
+     * are held back in a small window so ones that are only a little out of order still end up sorted,
+     * one starting before a caption that has already been written is written as it comes.
+     */
+    private static final class CueWriter implements CaptionHandler {
+
+        private static final int WINDOW = 32;
+
+        private final Appendable out;
+        private final TimeFormat format;
+        private final Retiming retiming;
+        private final Diagnostics diagnostics;
+        private final char[] buffer = new char[64];
+        //sorted by start time, keeping the order of arrival for equal start times
+        private final ArrayList<Caption> pending = new ArrayList<>(WINDOW + 1);
+        private int captionNumber = 1;
+        private int captionIndex;
+        private int lastWritten = Integer.MIN_VALUE;
+
+        CueWriter(Appendable out, TimeFormat format, Retiming retiming, Diagnostics diagnostics) {
+            this.out = out;
+            this.format = format;
+            this.retiming = retiming;
+            this.diagnostics = diagnostics;
+        }
+
+        @Override
+        public void onMetadata(String name, String value) {
+            //not part of SRT or VTT
+        }
+
+        @Override
+        public void onStyle(Style style) {
+            //not part of SRT or VTT
+        }
+
+        @Override
+        public void onCaption(Caption caption) {
+            int start = caption.start.getMilliseconds();
+            if (start < lastWritten) {
+                diagnostics.report(Diagnostic.Code.CAPTION_OUT_OF_ORDER, 0, captionIndex, null);
+            }
+            int i = pending.size();
+            while (i > 0 && pending.get(i - 1).start.getMilliseconds() > start) {
+                i--;
+            }
+            pending.add(i, caption);
+            captionIndex++;
+            if (pending.size() > WINDOW) {
+                write(pending.remove(0));
+            }
+        }
+
+        @Override
+        public void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail) {
+            diagnostics.report(code, line, captionIndex, detail);
+        }
+
+        void flush() {
+            for (Caption caption : pending) {
+                write(caption);
+            }
+            pending.clear();
+        }
+
+        private void write(Caption caption) {
+            lastWritten = caption.start.getMilliseconds();
+            try {
+                TimedTextFileFormat.writeNumberedCue(out, buffer, captionNumber++, caption, format, retiming);
+            } catch (IOException e) {
+                //a handler can't throw it, it is unwrapped again after parsing
+                throw new WriteFailure(e);
+            }
+        }
+
+    }
+
+    private static final class WriteFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        WriteFailure(IOException cause) {
+            super(cause);
+        }
+
+    }
+
+    private static final class Pair {
+
+        private final Class<?> from;
+        private final Class<?> to;
+
+        Pair(Class<?> from, Class<?> to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair other = (Pair) o;
+            return from == other.from && to == other.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * from.hashCode() + to.hashCode();
+        }
+
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Cuts captions into WebVTT segments of a fixed duration, as HLS and DASH serve them. Captions can come
+ * in one by one from a live source, as this is a {@link CaptionHandler} any format can parse into, or
+ * all at once from a {@link TimedTextObject} with {@link #segment(TimedTextObject)}.
+ * <br><br>
+ * Segment k covers [k * duration, (k + 1) * duration) and is handed to the {@link Listener} as soon as
+ * nothing can be added to it anymore: when a caption starting after its end comes in, or when the
+ * source says no earlier captions will follow with {@link #advanceTo(int)}. A live source calling that
+ * from its clock gets every segment, also the empty ones, at most one tick after it ends. Only the
+ * captions still showing are kept, so earlier segments are never written again.
+ * <br><br>
+ * A caption showing in several segments is written to all of them with its own times, as HLS asks for,
+ * or cut to the part inside each segment when {@link #splitCues} is set. Captions are expected in order
+ * of start time; one that comes in after the segments it starts in were handed out is only written to
+ * the segments that are left.
+ */
+public class VttSegmenter implements CaptionHandler {
+
+    /**
+     * Receives the segments, in order, without gaps.
+     */
+    public interface Listener {
+
+        /**
+         * @param index number of the segment, starting at 0
+         * @param start start of the segment in milliseconds
+         * @param end   end of the segment in milliseconds, exclusive; the last segment may end after
+         *              the largest time a caption can have
+         * @param vtt   the WebVTT file of the segment
+         */
+        void onSegment(int index, long start, long end, String vtt);
+
+    }
+
+    /**
+     * Cut captions showing in several segments to the part inside each segment, instead of writing
+     * the whole caption to each of them.
+     */
+    public volatile boolean splitCues;
+
+    private final int duration;
+    private final String header;
+    private final Listener listener;
+    //captions that may still show in the next segment, sorted by start time
+    private final ArrayList<Caption> pending = new ArrayList<>();
+    private final char[] buffer = new char[64];
+    private final StringBuilder out = new StringBuilder();
+    //a long, the segment after the last one that fits an int is still counted
+    private long segment;
+    private int late;
+
+    /**
+     * @param duration length of a segment in milliseconds
+     * @param mpegts   presentation time stamp of time 0 in the media segments, in 90 kHz units
+     * @param listener receiver of the segments
+     */
+    public VttSegmenter(int duration, long mpegts, Listener listener) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Invalid segment duration: " + duration);
+        }
+        this.duration = duration;
+        this.listener = listener;
+        //the time stamps of MPEG-TS wrap around at 33 bits
+        this.header = "WEBVTT\nX-TIMESTAMP-MAP=MPEGTS:" + (mpegts & 0x1FFFFFFFFL) + ",LOCAL:00:00:00.000\n\n";
+    }
+
+    /**
+     * Segments all captions of the object and hands out the last segments, see {@link #finish()}.
+     *
+     * @param tto the captions to segment
+     */
+    public synchronized void segment(TimedTextObject tto) {
+        for (Caption caption : tto.captions.values()) {
+            onCaption(caption);
+        }
+        finish();
+    }
+
+    @Override
+    public void onMetadata(String name, String value) {
+        //not part of a segment
+    }
+
+    @Override
+    public void onStyle(Style style) {
+        //not part of a segment
+    }
+
+    @Override
+    public synchronized void onCaption(Caption caption) {
+        int start = caption.start.getMilliseconds();
+        //everything that ended before the current segment has been handed out already
+        if (caption.end.getMilliseconds() <= segment * duration) {
+            late++;
+            return;
+        }
+        int i = pending.size();
+        while (i > 0 && pending.get(i - 1).start.getMilliseconds() > start) {
+            i--;
+        }
+        pending.add(i, caption);
+        advanceTo(start);
+    }
+
+    @Override
+    public void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail) {
+        //parsing problems don't stop a live stream
+    }
+
+    /**
+     * Hands out every segment ending at or before the given time, the source promises no captions
+     * starting before it will follow.
+     *
+     * @param milliseconds time up to which all captions have been received
+     */
+    public synchronized void advanceTo(int milliseconds) {
+        while ((segment + 1) * duration <= milliseconds) {
+            writeSegment();
+        }
+    }
+
+    /**
+     * Hands out the segments holding the captions that are left, at the end of the source.
+     */
+    public synchronized void finish() {
+        while (!pending.isEmpty()) {
+            writeSegment();
+        }
+    }
+
+    /**
+     * @return number of captions that came in after every segment they show in was handed out
+     */
+    public synchronized int getLateCount() {
+        return late;
+    }
+
+    private void writeSegment() {
+        //the end of the last segment doesn't always fit an int
+        long start = segment * duration;
+        long end = start + duration;
+        out.setLength(0);
+        out.append(header);
+        int number = 1;
+        Iterator<Caption> it = pending.iterator();
+        while (it.hasNext()) {
+            Caption caption = it.next();
+            if (caption.start.getMilliseconds() >= end) {
+                break;
+            }
+            int captionEnd = caption.end.getMilliseconds();
+            if (captionEnd > start) {
+                write(number++, splitCues ? clip(caption, start, end) : caption);
+            }
+            //it can't show in any later segment
+            if (captionEnd <= end) {
+                it.remove();
+            }
+        }
+        listener.onSegment((int) segment++, start, end, out.toString());
+    }
+
+    private void write(int number, Caption caption) {
+        try {
+            TimedTextFileFormat.writeNumberedCue(out, buffer, number, caption, TimeFormat.VTT_MS, Retiming.NONE);
+        } catch (IOException e) {
+            //a StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Caption clip(Caption caption, long start, long end) {
+        if (caption.start.getMilliseconds() >= start && caption.end.getMilliseconds() <= end) {
+            return caption;
+        }
+        Caption clipped = new Caption();
+        clipped.style = caption.style;
+        //the caption overlaps the segment, so both fall within the times of the caption
+        clipped.start = new Time((int) Math.max(start, caption.start.getMilliseconds()));
+        clipped.end = new Time((int) Math.min(end, caption.end.getMilliseconds()));
+        clipped.setContent(caption.getContent());
+        return clipped;
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchConverterTest {
+
+    private final AtomicInteger threads = new AtomicInteger();
+    private final List<String> uncaught = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            threads.incrementAndGet();
+            Thread thread = new Thread(runnable, "worker");
+            thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread thread, Throwable error) {
+                    uncaught.add(error.getMessage());
+                }
+            });
+            return thread;
+        }
+    });
+    private final List<String> outcomes = new CopyOnWriteArrayList<>();
+    private final BatchConverter.Callback callback = new BatchConverter.Callback() {
+        @Override
+        public void onConverted(BatchConverter.Result result) {
+            outcomes.add(Thread.currentThread().getName() + " " + result.job.fileName);
+        }
+
+        @Override
+        public void onFailed(BatchConverter.Job job, Throwable error) {
+            outcomes.add(Thread.currentThread().getName() + " " + job.fileName + " " + error.getClass().getSimpleName());
+        }
+    };
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void convertsJobs() throws Exception {
+        BatchConverter converter = new BatchConverter(executor, 4, 0, TimeUnit.MILLISECONDS);
+        final StringWriter vtt = new StringWriter();
+        converter.submit(new BatchConverter.Job("sample.srt", input(Samples.bytes("sample.srt")), Formats.SRT, Formats.VTT,
+                new BatchConverter.Output() {
+                    @Override
+                    public Writer open() {
+                        return vtt;
+                    }
+                }), callback);
+        BatchConverter.Result result = converter.submit(new BatchConverter.Job("sample.ass", input(Samples.bytes("sample.ass")),
+                Formats.ASS, Formats.TTML, null)).get();
+        converter.submit(new BatchConverter.Job("broken.ttml", input("<tt><p".getBytes(Samples.UTF_8)), Formats.TTML, Formats.SRT, null), callback);
+        converter.awaitCompletion();
+
+        assertEquals(Samples.text("sample.srt.vtt"), vtt.toString());
+        StringBuilder ttml = new StringBuilder();
+        for (String line : (String[]) result.file) {
+            ttml.append(line).append('\n');
+        }
+        assertEquals(Samples.text("sample.ass.ttml"), ttml.toString());
+        Collections.sort(outcomes);
+        assertEquals("[worker broken.ttml ParsingException, worker sample.srt]", outcomes.toString());
+    }
+
+    /**
+     * An exception thrown by a callback goes to the uncaught exception handler of the worker, which
+     * keeps running the next jobs.
+     */
+    @Test
+    public void containsExceptionsOfTheCallback() throws Exception {
+        BatchConverter converter = new BatchConverter(executor, 1, 0, TimeUnit.MILLISECONDS);
+        BatchConverter.Callback failing = new BatchConverter.Callback() {
+            @Override
+            public void onConverted(BatchConverter.Result result) {
+                throw new IllegalStateException("converted " + result.job.fileName);
+            }
+
+            @Override
+            public void onFailed(BatchConverter.Job job, Throwable error) {
+                throw new IllegalStateException("failed " + job.fileName);
+            }
+        };
+        for (int i = 0; i < 4; i++) {
+            converter.submit(new BatchConverter.Job("sample.srt", input(Samples.bytes("sample.srt")), Formats.SRT, Formats.VTT, null), failing);
+            converter.submit(new BatchConverter.Job("broken.ttml", input("<tt><p".getBytes(Samples.UTF_8)), Formats.TTML, Formats.SRT, null), failing);
+        }
+        converter.submit(new BatchConverter.Job("sample.srt", input(Samples.bytes("sample.srt")), Formats.SRT, Formats.VTT, null), callback);
+        converter.awaitCompletion();
+        assertEquals("[worker sample.srt]", outcomes.toString());
+        assertEquals(8, uncaught.size());
+        assertEquals("converted sample.srt", uncaught.get(0));
+        assertEquals("failed broken.ttml", uncaught.get(1));
+        assertEquals(2, threads.get());
+    }
+
+    @Test
+    public void keepsWarningsAtTheSetLevel() throws Exception {
+        BatchConverter converter = new BatchConverter(executor, 1, 0, TimeUnit.MILLISECONDS);
+        byte[] srt = "x\n\n1\n00:00:01,000 --> 00:00:02,000\ntext\n\n".getBytes(Samples.UTF_8);
+        BatchConverter.Result counted = converter.submit(new BatchConverter.Job("warned.srt", input(srt), Formats.SRT, Formats.VTT, null)).get();
+        assertEquals(1, counted.diagnostics.getCount());
+        assertEquals(0, counted.diagnostics.getEntries().size());
+
+        converter.setDiagnosticsLevel(Diagnostics.Level.ALL);
+        BatchConverter.Result all = converter.submit(new BatchConverter.Job("warned.srt", input(srt), Formats.SRT, Formats.VTT, null)).get();
+        assertEquals(Diagnostics.Level.ALL, converter.getDiagnosticsLevel());
+        assertEquals(Diagnostic.Code.CAPTION_NUMBER_EXPECTED, all.diagnostics.getEntries().get(0).code);
+    }
+
+    /**
+     * A timed out job keeps its place until its thread is done with it, and its callback runs on
+     * that thread.
+     */
+    @Test
+    public void timesOutJobs() throws Exception {
+        BatchConverter converter = new BatchConverter(executor, 1, 60, TimeUnit.SECONDS);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        BatchConverter.Input busy = new BatchConverter.Input() {
+            @Override
+            public InputStream open() {
+                maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                return new SlowInputStream() {
+                    @Override
+                    public void close() {
+                        running.decrementAndGet();
+                    }
+                };
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            converter.submit(new BatchConverter.Job("slow" + i, busy, Formats.SRT, Formats.VTT, null, 50, TimeUnit.MILLISECONDS), callback);
+        }
+        converter.awaitCompletion();
+        assertEquals("[worker slow0 TimeoutException, worker slow1 TimeoutException, worker slow2 TimeoutException]", outcomes.toString());
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, running.get());
+        converter.shutdown();
+    }
+
+    @Test
+    public void usesTheTimeoutOfTheConverter() throws Exception {
+        BatchConverter converter = new BatchConverter(executor, 2, 50, TimeUnit.MILLISECONDS);
+        BatchConverter.Input slow = new BatchConverter.Input() {
+            @Override
+            public InputStream open() {
+                return new SlowInputStream();
+            }
+        };
+        converter.submit(new BatchConverter.Job("slow", slow, Formats.SRT, Formats.VTT, null), callback);
+        converter.awaitCompletion();
+        assertEquals("[worker slow TimeoutException]", outcomes.toString());
+        converter.shutdown();
+    }
+
+    private static BatchConverter.Input input(final byte[] bytes) {
+        return new BatchConverter.Input() {
+            @Override
+            public InputStream open() {
+                return new ByteArrayInputStream(bytes);
+            }
+        };
+    }
+
+    /**
+     * An endless caption number line, handed out one byte per millisecond.
+     */
+    private static class SlowInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return '1';
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            buffer[offset] = (byte) read();
+            return 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BinaryCodecTest {
+
+    @Test
+    public void roundTripsTheSamples() throws Exception {
+        for (String extension : Samples.EXTENSIONS) {
+            assertSameObject(extension, Samples.parse(extension), read(write(Samples.parse(extension))));
+        }
+    }
+
+    @Test
+    public void roundTripsGeneratedObjects() throws Exception {
+        TimedTextObject tto = Samples.generate(5000, 11);
+        tto.offset = -250;
+        tto.useASSInsteadOfSSA = false;
+        TimedTextObject read = read(write(tto));
+        assertSameObject("generated", tto, read);
+        assertEquals(-250, read.offset);
+        assertEquals(false, read.useASSInsteadOfSSA);
+    }
+
+    @Test
+    public void keepsNullText() throws Exception {
+        TimedTextObject tto = Samples.generate(3, 1);
+        tto.description = null;
+        Caption caption = tto.captions.iterator().next();
+        caption.setContent(null);
+        TimedTextObject read = read(write(tto));
+        assertNull(read.description);
+        assertNull(read.captions.iterator().next().getContent());
+    }
+
+    @Test
+    public void leavesTheBufferAfterTheObject() throws Exception {
+        byte[] bytes = write(Samples.parse("srt"));
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.put(bytes).put(new byte[]{1, 2, 3}).flip();
+        TimedTextObject.readFrom(buffer);
+        assertEquals(3, buffer.remaining());
+    }
+
+    @Test
+    public void rejectsCorruptInput() throws Exception {
+        byte[] valid = write(Samples.parse("ass"));
+        assertCorrupt("WEBVTT".getBytes(Samples.UTF_8));
+        //every truncation of a valid object
+        for (int length = 0; length < valid.length; length++) {
+            byte[] truncated = new byte[length];
+            System.arraycopy(valid, 0, truncated, 0, length);
+            assertCorrupt(truncated);
+        }
+        //a style count far larger than what is left, and a negative one
+        byte[] header = {'C', 'C', 'T', 'T', 1, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        assertCorrupt(concat(header, new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+        assertCorrupt(concat(header, new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}));
+        //no styles and too many captions
+        assertCorrupt(concat(header, new byte[]{0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+        //a caption with a style that doesn't exist
+        assertCorrupt(concat(header, new byte[]{0, 1, 2, 0, 0, 0}));
+    }
+
+    /**
+     * Strings of the wrong length are rejected before anything is taken from the text.
+     */
+    @Test
+    public void rejectsStringsOutsideTheText() throws Exception {
+        byte[] text = {'C', 'C', 'T', 'T', 1, 0, 0, 2, 'a', 'b'};
+        //a title longer than the text
+        assertCorrupt(concat(text, new byte[]{4, 0, 0, 0, 0, 0, 0, 0}));
+        //a title that fits and a description running past the end
+        assertCorrupt(concat(text, new byte[]{2, 3, 0, 0, 0, 0, 0, 0}));
+        //a length that doesn't fit in an int once read
+        assertCorrupt(concat(text, new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 0, 0, 0, 0, 0, 0}));
+        //text that fits and caption text running past the end
+        assertCorrupt(concat(text, new byte[]{3, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 2}));
+    }
+
+    /**
+     * Everything but the order of the styling survives.
+     */
+    private static void assertSameObject(String message, TimedTextObject expected, TimedTextObject actual) throws Exception {
+        assertEquals(message, Samples.write(Formats.SRT, expected), Samples.write(Formats.SRT, actual));
+        assertEquals(message, Samples.write(Formats.VTT, expected), Samples.write(Formats.VTT, actual));
+        assertEquals(message, expected.styling.keySet(), actual.styling.keySet());
+        for (Style style : expected.styling.values()) {
+            Style other = actual.styling.get(style.id);
+            assertEquals(message, style.font, other.font);
+            assertEquals(message, style.color, other.color);
+            assertEquals(message, style.italic, other.italic);
+        }
+        assertEquals(message, expected.title, actual.title);
+        assertEquals(message, expected.fileName, actual.fileName);
+        assertEquals(message, expected.built, actual.built);
+    }
+
+    private static void assertCorrupt(byte[] bytes) {
+        try {
+            TimedTextObject.readFrom(ByteBuffer.wrap(bytes));
+            fail("Read " + bytes.length + " corrupt bytes");
+        } catch (ParsingException e) {
+            //expected
+        }
+    }
+
+    private static byte[] write(TimedTextObject tto) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tto.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static TimedTextObject read(byte[] bytes) throws Exception {
+        return TimedTextObject.readFrom(ByteBuffer.wrap(bytes));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CaptionArchiveTest {
+
+    private File file;
+
+    @After
+    public void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Writing from an archived track gives the same bytes as writing from the source, apart from the
+     * order of the styles.
+     */
+    @Test
+    public void givesBackTheSameFiles() throws Exception {
+        CaptionArchive.Builder builder = new CaptionArchive.Builder();
+        for (String extension : Samples.EXTENSIONS) {
+            builder.addTrack(extension, Samples.parse(extension));
+        }
+        CaptionArchive archive = open(builder);
+        assertEquals(Samples.EXTENSIONS.length, archive.getTrackCount());
+        for (int i = 0; i < Samples.EXTENSIONS.length; i++) {
+            TimedTextObject source = Samples.parse(Samples.EXTENSIONS[i]);
+            TimedTextObject archived = archive.getTrack(i).toTimedTextObject();
+            assertEquals(Samples.EXTENSIONS[i], archive.getTrack(i).getName());
+            assertEquals(Samples.write(Formats.SRT, source), Samples.write(Formats.SRT, archived));
+            assertEquals(Samples.write(Formats.VTT, source), Samples.write(Formats.VTT, archived));
+            assertEquals(sortedLines(Samples.write(Formats.ASS, source)), sortedLines(Samples.write(Formats.ASS, archived)));
+            assertEquals(sortedLines(Samples.write(Formats.TTML, source)), sortedLines(Samples.write(Formats.TTML, archived)));
+        }
+    }
+
+    /**
+     * Random seeks give the same captions as a linear scan over the source.
+     */
+    @Test
+    public void seeksLikeALinearScan() throws Exception {
+        TimedTextObject tto = Samples.generate(20000, 5);
+        CaptionArchive.Track track = open(new CaptionArchive.Builder().addTrack("big", tto)).getTrack("big");
+        assertEquals(20000, track.size());
+        List<Caption> captions = new ArrayList<>(tto.captions);
+        int last = captions.get(captions.size() - 1).end.getMilliseconds();
+        Random random = new Random(1);
+        for (int k = 0; k < 2000; k++) {
+            int time = random.nextInt(last + 2000) - 1000;
+            List<String> expected = new ArrayList<>();
+            for (Caption caption : captions) {
+                if (caption.start.getMilliseconds() <= time && caption.end.getMilliseconds() > time) {
+                    expected.add(describe(caption));
+                }
+            }
+            assertEquals("at " + time, expected, describe(track.getCaptionsAt(time)));
+
+            int to = time + random.nextInt(10000);
+            expected.clear();
+            for (Caption caption : captions) {
+                if (caption.start.getMilliseconds() < to && caption.end.getMilliseconds() > time) {
+                    expected.add(describe(caption));
+                }
+            }
+            assertEquals("between " + time + " and " + to, expected, describe(track.getCaptionsBetween(time, to)));
+        }
+    }
+
+    @Test
+    public void keepsNullText() throws Exception {
+        TimedTextObject tto = Samples.generate(4, 2);
+        List<Caption> captions = new ArrayList<>(tto.captions);
+        captions.get(1).setContent(null);
+        captions.get(2).setContent("");
+        CaptionArchive.Track track = open(new CaptionArchive.Builder().addTrack("nulls", tto)).getTrack(0);
+        assertEquals(captions.get(0).getContent(), track.getContent(0));
+        assertNull(track.getContent(1));
+        assertNull(track.getCaption(1).getContent());
+        assertEquals("", track.getContent(2));
+        assertEquals(captions.get(3).getContent(), track.getCaption(3).getContent());
+    }
+
+    @Test
+    public void findsNothingAtTheLastMillisecond() throws Exception {
+        TimedTextObject tto = new TimedTextObject();
+        Caption caption = new Caption();
+        caption.start = new Time(0);
+        caption.end = new Time(Integer.MAX_VALUE);
+        tto.captions.add(caption);
+        tto.built = true;
+        CaptionArchive.Track track = open(new CaptionArchive.Builder().addTrack("long", tto)).getTrack(0);
+        assertEquals(0, track.getCaptionsAt(Integer.MAX_VALUE).size());
+        assertEquals(1, track.getCaptionsAt(Integer.MAX_VALUE - 1).size());
+    }
+
+    @Test
+    public void findsTracksByName() throws Exception {
+        CaptionArchive archive = open(new CaptionArchive.Builder()
+                .addTrack("en", Samples.parse("srt"))
+                .addTrack("nl", Samples.parse("vtt"))
+                .addTrack("en", Samples.parse("ass")));
+        assertEquals(archive.getTrack(0), archive.getTrack("en"));
+        assertEquals(archive.getTrack(1), archive.getTrack("nl"));
+        assertNull(archive.getTrack("de"));
+    }
+
+    @Test
+    public void rejectsCorruptArchives() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CaptionArchive.Builder().addTrack("srt", Samples.parse("srt")).writeTo(out);
+        byte[] valid = out.toByteArray();
+        assertCorrupt("CCAR\0\0\0\1\0\0\0\5".getBytes(Samples.UTF_8));
+        assertCorrupt("WEBVTT\n\n".getBytes(Samples.UTF_8));
+        for (int length = 0; length < valid.length; length++) {
+            assertCorrupt(Arrays.copyOf(valid, length));
+        }
+    }
+
+    /**
+     * Records pointing outside the track are found when the archive is opened, not when they are read.
+     */
+    @Test
+    public void rejectsRecordsOutsideTheTrack() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CaptionArchive.Builder().addTrack("ass", Samples.parse("ass")).writeTo(out);
+        byte[] valid = out.toByteArray();
+        //the only track starts right after the archive header
+        int track = 16;
+        int styles = track + 76;
+        int captions = styles + ByteBuffer.wrap(valid).getInt(track + 4) * 52;
+        int textLength = ByteBuffer.wrap(valid).getInt(track + 16);
+
+        //the length of the title, the start of the font of the first style
+        assertCorrupt(valid, track + 32, textLength);
+        assertCorrupt(valid, styles + 8, textLength + 1);
+        //the highest end of the first caption, the start, style and text of the second one
+        assertCorrupt(valid, captions + 16, Integer.MIN_VALUE);
+        assertCorrupt(valid, captions + 20, Integer.MIN_VALUE);
+        assertCorrupt(valid, captions + 28, ByteBuffer.wrap(valid).getInt(track + 4));
+        assertCorrupt(valid, captions + 28, -2);
+        assertCorrupt(valid, captions + 32, textLength + 1);
+        assertCorrupt(valid, captions + 12, ByteBuffer.wrap(valid).getInt(captions + 32) + 1);
+    }
+
+    private CaptionArchive open(CaptionArchive.Builder builder) throws Exception {
+        file = File.createTempFile("archive", ".ccar");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            builder.writeTo(out);
+        } finally {
+            out.close();
+        }
+        return CaptionArchive.open(file);
+    }
+
+    private static void assertCorrupt(byte[] valid, int index, int value) {
+        byte[] bytes = valid.clone();
+        ByteBuffer.wrap(bytes).putInt(index, value);
+        assertCorrupt(bytes);
+    }
+
+    private static void assertCorrupt(byte[] bytes) {
+        try {
+            CaptionArchive.wrap(ByteBuffer.wrap(bytes));
+            fail("Opened " + bytes.length + " corrupt bytes");
+        } catch (ParsingException e) {
+            assertTrue(e.getMessage().contains("caption archive"));
+        }
+    }
+
+    private static List<String> sortedLines(String text) {
+        String[] lines = text.split("\n");
+        Arrays.sort(lines);
+        return Arrays.asList(lines);
+    }
+
+    private static String describe(Caption caption) {
+        return caption.start.getMilliseconds() + "-" + caption.end.getMilliseconds() + " "
+                + (caption.style == null ? null : caption.style.id) + " " + caption.getContent();
+    }
+
+    private static List<String> describe(List<Caption> captions) {
+        List<String> result = new ArrayList<>();
+        for (Caption caption : captions) {
+            result.add(describe(caption));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CaptionIndexTest {
+
+    private final TimedTextObject tto = Samples.generate(5000, 9);
+    private final List<Caption> captions = new ArrayList<>(tto.captions);
+    private final CaptionIndex index = CaptionIndex.of(tto);
+
+    @Test
+    public void findsCaptionsLikeALinearScan() {
+        Random random = new Random(2);
+        int last = captions.get(captions.size() - 1).end.getMilliseconds();
+        for (int k = 0; k < 1000; k++) {
+            int from = random.nextInt(last + 2000) - 1000;
+            int to = from + random.nextInt(5000);
+            assertEquals("at " + from, scan(from, from + 1), describe(index.getActiveAt(from)));
+            assertEquals("between " + from + " and " + to, scan(from, to), describe(index.getInRange(from, to)));
+        }
+    }
+
+    @Test
+    public void cursorFollowsPlayback() {
+        CaptionIndex.Cursor cursor = index.cursor();
+        int last = captions.get(captions.size() - 1).end.getMilliseconds();
+        for (int time = -500; time < last + 500; time += 97) {
+            cursor.advanceTo(time);
+            assertEquals("at " + time, scan(time, time + 1), describe(cursor.getActive()));
+        }
+        Random random = new Random(3);
+        for (int k = 0; k < 500; k++) {
+            int time = random.nextInt(last);
+            cursor.advanceTo(time);
+            assertEquals("at " + time, scan(time, time + 1), describe(cursor.getActive()));
+        }
+    }
+
+    @Test
+    public void findsNothingAtTheLastMillisecond() {
+        TimedTextObject tto = new TimedTextObject();
+        Caption caption = new Caption();
+        caption.start = new Time(0);
+        caption.end = new Time(Integer.MAX_VALUE);
+        tto.captions.add(caption);
+        CaptionIndex index = CaptionIndex.of(tto);
+        assertEquals(0, index.getActiveAt(Integer.MAX_VALUE).size());
+        assertEquals(1, index.getActiveAt(Integer.MAX_VALUE - 1).size());
+    }
+
+    private List<String> scan(int from, int to) {
+        List<String> result = new ArrayList<>();
+        for (Caption caption : captions) {
+            if (caption.start.getMilliseconds() < to && caption.end.getMilliseconds() > from) {
+                result.add(describe(caption));
+            }
+        }
+        return result;
+    }
+
+    private static String describe(Caption caption) {
+        return caption.start.getMilliseconds() + "-" + caption.end.getMilliseconds() + " " + caption.getContent();
+    }
+
+    private static List<String> describe(List<Caption> captions) {
+        List<String> result = new ArrayList<>();
+        for (Caption caption : captions) {
+            result.add(describe(caption));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CaptionStoreTest {
+
+    @Test
+    public void holdsTheCaptionsOfAnObject() throws Exception {
+        for (String extension : Samples.EXTENSIONS) {
+            TimedTextObject tto = Samples.parse(extension);
+            CaptionStore store = CaptionStore.from(tto);
+            assertEquals(extension, tto.captions.size(), store.size());
+            Iterator<Caption> stored = store.iterator();
+            int i = 0;
+            for (Caption caption : tto.captions.values()) {
+                assertEquals(extension, caption.start.getMilliseconds(), store.getStart(i));
+                assertEquals(extension, caption.end.getMilliseconds(), store.getEnd(i));
+                assertSame(extension, caption.style, store.getStyle(i));
+                assertEquals(extension, caption.content, store.getContent(i));
+                assertEquals(extension, caption.content, stored.next().getContent());
+                i++;
+            }
+            assertFalse(stored.hasNext());
+        }
+    }
+
+    /**
+     * Captions are sorted when the store is built, equal start times keep the order they came in.
+     */
+    @Test
+    public void sortsCaptionsByStart() {
+        Style style = new Style("style");
+        CaptionStore.Builder builder = new CaptionStore.Builder(1);
+        builder.onCaption(caption(3000, "last", null));
+        builder.onCaption(caption(1000, "first", style));
+        builder.onCaption(caption(1000, "second", null));
+        builder.onCaption(caption(2000, "third", style));
+        CaptionStore store = builder.build();
+        String[] contents = {"first", "second", "third", "last"};
+        int[] starts = {1000, 1000, 2000, 3000};
+        for (int i = 0; i < contents.length; i++) {
+            assertEquals(contents[i], store.getContent(i));
+            assertEquals(starts[i], store.getStart(i));
+            assertEquals(starts[i] + 500, store.getEnd(i));
+        }
+        assertSame(style, store.getStyle(0));
+        assertNull(store.getStyle(1));
+    }
+
+    @Test
+    public void growsPastTheExpectedSize() {
+        CaptionStore.Builder builder = new CaptionStore.Builder(1);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("caption ").append(i);
+            builder.onCaption(caption(i * 1000, content.toString(), null));
+        }
+        CaptionStore store = builder.build();
+        assertEquals(100, store.size());
+        assertEquals(content.toString(), store.getContent(99));
+        assertEquals("caption 0caption 1", store.getContent(1));
+    }
+
+    /**
+     * A caption without text keeps it null, whether the captions arrive in order or not.
+     */
+    @Test
+    public void keepsNullContent() {
+        CaptionStore.Builder builder = new CaptionStore.Builder();
+        builder.onCaption(caption(1000, "first", null));
+        builder.onCaption(caption(2000, null, null));
+        builder.onCaption(caption(3000, "last", null));
+        CaptionStore store = builder.build();
+        assertEquals("first", store.getContent(0));
+        assertNull(store.getContent(1));
+        assertNull(store.getCaption(1).content);
+        assertEquals("last", store.getContent(2));
+
+        builder.onCaption(caption(0, null, null));
+        store = builder.build();
+        assertNull(store.getContent(0));
+        assertEquals("first", store.getContent(1));
+        assertNull(store.getContent(2));
+        assertEquals("last", store.getContent(3));
+    }
+
+    @Test
+    public void searchesByStart() {
+        CaptionStore.Builder builder = new CaptionStore.Builder();
+        builder.onCaption(caption(1000, "a", null));
+        builder.onCaption(caption(2000, "b", null));
+        builder.onCaption(caption(2000, "c", null));
+        CaptionStore store = builder.build();
+        assertEquals(0, store.ceilingIndex(0));
+        assertEquals(1, store.ceilingIndex(1001));
+        assertEquals(1, store.ceilingIndex(2000));
+        assertEquals(3, store.ceilingIndex(2001));
+        assertEquals(-1, store.floorIndex(999));
+        assertEquals(0, store.floorIndex(1999));
+        assertEquals(2, store.floorIndex(2000));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsPositionsOutsideTheStore() {
+        new CaptionStore.Builder().build().getStart(0);
+    }
+
+    private static Caption caption(int start, String content, Style style) {
+        Caption caption = new Caption();
+        caption.start = new Time(start);
+        caption.end = new Time(start + 500);
+        caption.content = content;
+        caption.style = style;
+        return caption;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CaptionTest {
+
+    @Test
+    public void decodesLazyTextWhenRead() {
+        Caption caption = new Caption();
+        caption.setLazyContent(new Text("lazy<br />text"));
+        assertNull(caption.content);
+        assertEquals("lazy<br />text", caption.getContent());
+        assertEquals("lazy<br />text", caption.content);
+        assertEquals("lazy\ntext", caption.getText());
+    }
+
+    @Test
+    public void keepsAssignedContent() {
+        Caption caption = new Caption();
+        caption.setLazyContent(new Text("lazy"));
+        caption.content = "assigned";
+        assertEquals("assigned", caption.getContent());
+
+        caption.setLazyContent(new Text("lazy"));
+        caption.setContent("set");
+        assertEquals("set", caption.getContent());
+    }
+
+    @Test
+    public void followsTheContentInPlainText() {
+        Caption caption = new Caption();
+        caption.content = "<i>first</i>";
+        assertEquals("first", caption.getText());
+        caption.content = "second<br />";
+        assertEquals("second", caption.getText());
+    }
+
+    @Test
+    public void hasNoPlainTextWithoutContent() {
+        Caption caption = new Caption();
+        caption.content = null;
+        assertNull(caption.getText());
+    }
+
+    /**
+     * The parsers fill the field itself, callers reading it directly keep working.
+     */
+    @Test
+    public void parsersFillTheContentField() throws Exception {
+        for (String extension : Samples.EXTENSIONS) {
+            TimedTextObject tto = Formats.forExtension(extension).parseFile("sample", Samples.text("sample." + extension));
+            for (Caption caption : tto.captions) {
+                assertEquals(extension, caption.getContent(), caption.content);
+            }
+            for (Caption caption : CaptionStore.from(tto)) {
+                assertEquals(extension, caption.getContent(), caption.content);
+            }
+        }
+    }
+
+    private static final class Text extends LazyContent {
+
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        String decode() {
+            return text;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CaptionsTest {
+
+    /**
+     * Captions with the same start time keep the order they were added in and their own times.
+     */
+    @Test
+    public void keepsEqualStartsInOrder() {
+        Captions captions = new Captions();
+        captions.add(caption(2000, "a"));
+        captions.add(caption(1000, "b"));
+        captions.add(caption(2000, "c"));
+        captions.add(caption(-1000, "d"));
+        captions.add(caption(1000, "e"));
+        captions.add(caption(2000, "f"));
+        assertEquals(6, captions.size());
+        assertEquals(Arrays.asList("-1000 d", "1000 b", "1000 e", "2000 a", "2000 c", "2000 f"), describe(captions));
+    }
+
+    @Test
+    public void findsCaptionsStartingInARange() {
+        Captions captions = new Captions();
+        for (int i = 0; i < 3; i++) {
+            captions.add(caption(1000, "first " + i));
+            captions.add(caption(2000, "second " + i));
+        }
+        assertEquals(Arrays.asList("1000 first 0", "1000 first 1", "1000 first 2"), describe(captions.startingBetween(0, 2000)));
+        assertEquals(Arrays.asList("2000 second 0", "2000 second 1", "2000 second 2"), describe(captions.startingBetween(2000, 2001)));
+        assertEquals(0, captions.startingBetween(2000, 2000).size());
+        assertEquals(0, captions.startingBetween(3000, 1000).size());
+    }
+
+    @Test
+    public void parsersKeepEqualStarts() throws Exception {
+        String srt = "1\n00:00:01,000 --> 00:00:02,000\nfirst\n\n"
+                + "2\n00:00:01,000 --> 00:00:03,000\nsecond\n\n"
+                + "3\n00:00:00,500 --> 00:00:01,000\nthird\n\n";
+        TimedTextObject tto = new FormatSRT().parseFile("equal.srt", srt);
+        assertEquals(Arrays.asList("500 third", "1000 first", "1000 second"), describe(tto.captions));
+        List<Caption> parsed = new ArrayList<>(tto.captions);
+        assertEquals(2000, parsed.get(1).end.getMilliseconds());
+        assertEquals(3000, parsed.get(2).end.getMilliseconds());
+    }
+
+    private static Caption caption(int start, String content) {
+        Caption caption = new Caption();
+        caption.start = new Time(start);
+        caption.end = new Time(start + 500);
+        caption.content = content;
+        return caption;
+    }
+
+    private static List<String> describe(Collection<Caption> captions) {
+        List<String> result = new ArrayList<>();
+        for (Caption caption : captions) {
+            result.add(caption.start.getMilliseconds() + " " + caption.content.replace("<br />", ""));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConversionCacheTest {
+
+    private File directory;
+
+    @After
+    public void deleteDirectory() {
+        if (directory != null) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void answersTheSameConversionFromMemory() throws Exception {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        byte[] srt = Samples.bytes("sample.srt");
+        String first = cache.convert("sample.srt", srt, Formats.SRT, Formats.VTT);
+        assertEquals(Samples.text("sample.srt.vtt"), first);
+        assertEquals(first, cache.convert("sample.srt", srt, Formats.SRT, Formats.VTT));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertTrue(cache.getSize() > 0);
+    }
+
+    /**
+     * The file name is only part of the key when the output contains it.
+     */
+    @Test
+    public void keysOnTheFileNameOnlyWhenItIsWritten() throws Exception {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        byte[] srt = Samples.bytes("sample.srt");
+        cache.convert("a.srt", srt, Formats.SRT, Formats.VTT);
+        cache.convert("b.srt", srt, Formats.SRT, Formats.VTT);
+        assertEquals(1, cache.getMissCount());
+        String a = cache.convert("a.srt", srt, Formats.SRT, Formats.TTML);
+        String b = cache.convert("b.srt", srt, Formats.SRT, Formats.TTML);
+        assertEquals(3, cache.getMissCount());
+        assertTrue(a.contains("<ttm:title>a.srt</ttm:title>"));
+        assertTrue(b.contains("<ttm:title>b.srt</ttm:title>"));
+        cache.convert("a.srt", srt, Formats.SRT, Formats.ASS);
+        cache.convert("b.srt", srt, Formats.SRT, Formats.ASS);
+        assertEquals(5, cache.getMissCount());
+    }
+
+    @Test
+    public void keysOnTheOptions() throws Exception {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        byte[] srt = Samples.bytes("sample.srt");
+        String shifted = cache.convert("sample.srt", srt, Formats.SRT, Formats.SRT, 1000, true);
+        assertTrue(shifted.startsWith("1\n00:00:02,000 --> 00:00:03,500\n"));
+        assertEquals(Samples.text("sample.srt.srt"), cache.convert("sample.srt", srt, Formats.SRT, Formats.SRT));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void findsResultsInTheDirectory() throws Exception {
+        directory = File.createTempFile("cache", "");
+        directory.delete();
+        byte[] ass = Samples.bytes("sample.ass");
+        ConversionCache cache = new ConversionCache(1 << 20, directory, 1 << 20);
+        String result = cache.convert("sample.ass", ass, Formats.ASS, Formats.SRT);
+        cache.clear();
+        assertEquals(result, cache.convert("sample.ass", ass, Formats.ASS, Formats.SRT));
+        assertEquals(1, cache.getDiskHitCount());
+
+        ConversionCache restarted = new ConversionCache(1 << 20, directory, 1 << 20);
+        assertEquals(result, restarted.convert("sample.ass", ass, Formats.ASS, Formats.SRT));
+        assertEquals(0, restarted.getMissCount());
+    }
+
+    /**
+     * Only temporary files of the cache that are too old to still be written are removed when it
+     * starts, other files in the directory are left alone.
+     */
+    @Test
+    public void removesOnlyItsOwnStaleTemporaryFiles() throws Exception {
+        directory = File.createTempFile("cache", "");
+        directory.delete();
+        directory.mkdirs();
+        String key = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+        File stale = new File(directory, key + "42.cache.tmp");
+        File writing = new File(directory, key + "43.cache.tmp");
+        File foreign = new File(directory, "notes.tmp");
+        for (File file : new File[]{stale, writing, foreign}) {
+            assertTrue(file.createNewFile());
+        }
+        long old = System.currentTimeMillis() - 2 * 60 * 60 * 1000;
+        stale.setLastModified(old);
+        foreign.setLastModified(old);
+
+        new ConversionCache(1 << 20, directory, 1 << 20);
+        assertFalse(stale.exists());
+        assertTrue(writing.exists());
+        assertTrue(foreign.exists());
+    }
+
+    @Test
+    public void dropsTheLeastRecentlyUsedResults() throws Exception {
+        byte[] vtt = Samples.bytes("sample.vtt");
+        //room for two results, each estimated at two bytes per character and 200 bytes around them
+        int size = Samples.text("sample.vtt.srt").length() * 2 + 200;
+        ConversionCache cache = new ConversionCache(size * 2);
+        cache.convert("1", vtt, Formats.VTT, Formats.SRT, 1, true);
+        cache.convert("2", vtt, Formats.VTT, Formats.SRT, 2, true);
+        cache.convert("1", vtt, Formats.VTT, Formats.SRT, 1, true);
+        cache.convert("3", vtt, Formats.VTT, Formats.SRT, 3, true);
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getSize() <= size * 2);
+        //1 was used after 2, so 2 was dropped
+        cache.convert("1", vtt, Formats.VTT, Formats.SRT, 1, true);
+        assertEquals(3, cache.getMissCount());
+        cache.convert("2", vtt, Formats.VTT, Formats.SRT, 2, true);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void convertsOnceForConcurrentRequests() throws Exception {
+        final ConversionCache cache = new ConversionCache(1 << 24);
+        final byte[] srt = Samples.write(Formats.SRT, Samples.generate(20000, 4)).getBytes(Samples.UTF_8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return cache.convert("big.srt", srt, Formats.SRT, Formats.VTT);
+                    }
+                }));
+            }
+            String first = results.get(0).get();
+            for (Future<String> result : results) {
+                assertEquals(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(7, cache.getHitCount() + cache.getCoalescedCount());
+    }
+
+    @Test
+    public void doesNotKeepFailures() throws Exception {
+        ConversionCache cache = new ConversionCache(1 << 20);
+        byte[] broken = "<tt><p".getBytes(Samples.UTF_8);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.convert("broken.ttml", broken, Formats.TTML, Formats.SRT);
+                fail("Converted a broken file");
+            } catch (ParsingException | IOException e) {
+                //expected
+            }
+        }
+        assertEquals(2, cache.getMissCount());
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DiagnosticsTest {
+
+    @Test
+    public void keepsAsMuchAsTheLevelSays() {
+        Diagnostics off = report(new Diagnostics(Diagnostics.Level.OFF, 2));
+        assertEquals(0, off.getCount());
+        assertEquals(0, off.getEntries().size());
+        assertFalse(off.isTruncated());
+
+        Diagnostics counted = report(new Diagnostics(Diagnostics.Level.COUNT_ONLY, 2));
+        assertEquals(5, counted.getCount());
+        assertEquals(0, counted.getEntries().size());
+        assertTrue(counted.isTruncated());
+
+        Diagnostics first = report(new Diagnostics(Diagnostics.Level.FIRST_N, 2));
+        assertEquals(5, first.getCount());
+        assertEquals(2, first.getEntries().size());
+        assertEquals(1, first.getEntries().get(0).line);
+        assertEquals(4, first.getEntries().get(1).captionIndex);
+        assertTrue(first.isTruncated());
+
+        Diagnostics all = report(new Diagnostics(Diagnostics.Level.ALL, 2));
+        assertEquals(5, all.getCount());
+        assertEquals(5, all.getEntries().size());
+        assertFalse(all.isTruncated());
+    }
+
+    @Test
+    public void countsEveryCode() {
+        Diagnostics diagnostics = report(new Diagnostics(Diagnostics.Level.COUNT_ONLY));
+        assertEquals(3, diagnostics.getCount(Diagnostic.Code.INVALID_TIME_FORMAT));
+        assertEquals(2, diagnostics.getCount(Diagnostic.Code.UNDEFINED_STYLE));
+        assertEquals(0, diagnostics.getCount(Diagnostic.Code.UNRECOGNIZED_COLOR));
+        assertEquals(2, diagnostics.getCounts().size());
+        assertEquals(Integer.valueOf(3), diagnostics.getCounts().get(Diagnostic.Code.INVALID_TIME_FORMAT));
+    }
+
+    @Test
+    public void describesTheKeptWarnings() {
+        Diagnostics diagnostics = report(new Diagnostics(Diagnostics.Level.FIRST_N, 2));
+        assertEquals("incorrect time format: 00:00 (line 1)\n"
+                + "undefined style (caption 4)\n"
+                + "3 more\n", diagnostics.toString());
+    }
+
+    /**
+     * The diagnostics passed to the parser become those of the result, with the line of every warning.
+     */
+    @Test
+    public void receivesTheWarningsOfTheParser() throws Exception {
+        String srt = "1\n00:00:01,000 --> 00:00:02,000\nfirst\n\n"
+                + "x\n\n"
+                + "2\nnot a time\n\n"
+                + "3\n00:00:03,000 --> 00:00:04,000\nlast\n\n";
+        Diagnostics diagnostics = new Diagnostics(Diagnostics.Level.ALL);
+        TimedTextObject tto = new FormatSRT().parseFile("warnings.srt", new StringReader(srt), diagnostics);
+        assertSame(diagnostics, tto.diagnostics);
+        assertEquals(2, tto.captions.size());
+        assertEquals(1, diagnostics.getCount(Diagnostic.Code.CAPTION_NUMBER_EXPECTED));
+        assertEquals(1, diagnostics.getCount(Diagnostic.Code.INVALID_TIME_FORMAT));
+        assertEquals(5, diagnostics.getEntries().get(0).line);
+        assertEquals(8, diagnostics.getEntries().get(1).line);
+    }
+
+    private static Diagnostics report(Diagnostics diagnostics) {
+        diagnostics.report(Diagnostic.Code.INVALID_TIME_FORMAT, 1, -1, "00:00");
+        diagnostics.report(Diagnostic.Code.UNDEFINED_STYLE, 0, 4, null);
+        diagnostics.report(Diagnostic.Code.INVALID_TIME_FORMAT, 3, -1, "1:00");
+        diagnostics.report(Diagnostic.Code.UNDEFINED_STYLE, 0, 5, null);
+        diagnostics.report(Diagnostic.Code.INVALID_TIME_FORMAT, 5, -1, "");
+        return diagnostics;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FormatTTMLTest {
+
+    private static final String HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<tt xmlns=\"http://www.w3.org/ns/ttml\" xmlns:tts=\"http://www.w3.org/ns/ttml#styling\""
+            + " xmlns:ttp=\"http://www.w3.org/ns/ttml#parameter\" xmlns:ttm=\"http://www.w3.org/ns/ttml#metadata\""
+            + " ttp:frameRate=\"25\" ttp:tickRate=\"10\">\n"
+            + "<head>\n"
+            + "<metadata><ttm:title>Title</ttm:title><ttm:desc>About <b>it</b></ttm:desc></metadata>\n"
+            + "<styling>\n"
+            + "<style xml:id=\"s1\" tts:color=\"#ff0000\" tts:fontStyle=\"italic\"/>\n"
+            + "<style xml:id=\"s2\" style=\"s1\" tts:fontWeight=\"bold\"/>\n"
+            + "</styling>\n"
+            + "</head>\n"
+            + "<body><div>\n";
+    private static final String TAIL = "</div></body></tt>\n";
+
+    /**
+     * Every run of text directly inside the p is trimmed, line breaks are kept as markup.
+     */
+    @Test
+    public void readsTextAndLineBreaks() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"1s\" end=\"2s\">\n  first line\n  <br/>\n  second line\n</p>\n"
+                + "<p begin=\"3s\" end=\"4s\">one<br/><br/>two</p>\n");
+        assertEquals("[1000-2000 first line<br />second line, 3000-4000 one<br /><br />two]", describe(tto).toString());
+    }
+
+    @Test
+    public void readsEveryTimeExpression() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"00:00:01.500\" end=\"00:00:02:12\">clock</p>\n"
+                + "<p begin=\"2.5s\" end=\"2600ms\">seconds</p>\n"
+                + "<p begin=\"0.05m\" end=\"0.001h\">minutes</p>\n"
+                + "<p begin=\"100f\" end=\"50t\">frames and ticks</p>\n"
+                + "<p begin=\"7s\" dur=\"1.5s\">duration</p>\n");
+        assertEquals("[1500-2480 clock, 2500-2600 seconds, 3000-3600 minutes, 4000-5000 frames and ticks, 7000-8500 duration]",
+                describe(tto).toString());
+    }
+
+    @Test
+    public void skipsCaptionsWithoutEndOrText() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"1s\">no end</p>\n"
+                + "<p begin=\"2s\" end=\"3s\">  </p>\n"
+                + "<p begin=\"4s\" end=\"5s\">kept</p>\n");
+        assertEquals("[4000-5000 kept]", describe(tto).toString());
+    }
+
+    @Test
+    public void resolvesStyles() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"1s\" end=\"2s\" style=\"s2\">styled</p>\n"
+                + "<p begin=\"3s\" end=\"4s\" style=\"missing\">unstyled</p>\n");
+        Style s2 = tto.styling.get("s2");
+        assertEquals("ff0000ff", s2.color);
+        assertTrue(s2.italic);
+        assertTrue(s2.bold);
+        List<Caption> captions = new ArrayList<>(tto.captions);
+        assertSame(s2, captions.get(0).style);
+        assertNull(captions.get(1).style);
+        assertEquals(1, tto.diagnostics.getCount(Diagnostic.Code.UNDEFINED_STYLE));
+    }
+
+    @Test
+    public void readsTheMetadata() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"1s\" end=\"2s\">text</p>\n");
+        assertEquals("Title", tto.title);
+        assertEquals("About it", tto.description);
+    }
+
+    /**
+     * Text and attribute values are escaped, so the parser reads back what was written.
+     */
+    @Test
+    public void escapesWhatItWrites() throws Exception {
+        TimedTextObject tto = new TimedTextObject();
+        tto.title = "Tom & Jerry";
+        tto.language = "en\"";
+        Style style = new Style("a<b");
+        tto.styling.put(style.id, style);
+        Caption caption = new Caption();
+        caption.start = new Time(1000);
+        caption.end = new Time(2000);
+        caption.style = style;
+        caption.content = "1 < 2 & \"3\"<br /><i>four</i>";
+        tto.captions.add(caption);
+        tto.built = true;
+
+        TimedTextObject again = Formats.TTML.parseFile("test.ttml", Samples.write(Formats.TTML, tto));
+        assertEquals("Tom & Jerry", again.title);
+        Caption read = again.captions.iterator().next();
+        assertEquals("1 < 2 & \"3\"<br />four", read.content);
+        assertSame(again.styling.get("a<b"), read.style);
+    }
+
+    /**
+     * The offset of the object moves the written times, the parsed captions keep theirs.
+     */
+    @Test
+    public void writesTheOffset() throws Exception {
+        TimedTextObject tto = parse("<p begin=\"1s\" end=\"2s\">first</p>\n<p begin=\"3s\" end=\"4s\">second</p>\n");
+        tto.offset = -1500;
+        String written = Samples.write(Formats.TTML, tto);
+        assertTrue(written, written.contains("<p begin=\"00:00:00.000\" end=\"00:00:00.500\" >first</p>"));
+        assertTrue(written, written.contains("<p begin=\"00:00:01.500\" end=\"00:00:02.500\" >second</p>"));
+        assertEquals("[1000-2000 first, 3000-4000 second]", describe(tto).toString());
+
+        StringBuilder scaled = new StringBuilder();
+        Formats.TTML.write(tto, Retiming.scale(2), scaled);
+        assertTrue(scaled.toString(), scaled.toString().contains("<p begin=\"00:00:06.000\" end=\"00:00:08.000\" >second</p>"));
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsBrokenDocuments() throws Exception {
+        Formats.TTML.parseFile("broken.ttml", "<tt><p begin=\"1s\" end=\"2s\">text</tt>");
+    }
+
+    private static TimedTextObject parse(String captions) throws Exception {
+        return Formats.TTML.parseFile("test.ttml", HEAD + captions + TAIL);
+    }
+
+    private static List<String> describe(TimedTextObject tto) {
+        List<String> result = new ArrayList<>();
+        for (Caption caption : tto.captions) {
+            result.add(caption.start.getMilliseconds() + "-" + caption.end.getMilliseconds() + " " + caption.content);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class FormatsTest {
+
+    /**
+     * Every format written from every sample, against the output kept in sample.&lt;from&gt;.&lt;to&gt;.
+     */
+    @Test
+    public void writesTheExpectedOutput() throws Exception {
+        for (String from : Samples.EXTENSIONS) {
+            TimedTextObject tto = Samples.parse(from);
+            for (String to : Samples.EXTENSIONS) {
+                assertEquals(from + " to " + to, Samples.text("sample." + from + "." + to),
+                        Samples.write(Formats.forExtension(to), tto));
+            }
+        }
+    }
+
+    @Test
+    public void toFileMatchesWrite() throws Exception {
+        for (String from : Samples.EXTENSIONS) {
+            TimedTextObject tto = Samples.parse(from);
+            for (String to : Samples.EXTENSIONS) {
+                TimedTextFileFormat format = Formats.forExtension(to);
+                StringBuilder sb = new StringBuilder();
+                for (String line : (String[]) format.toFile(tto)) {
+                    sb.append(line).append('\n');
+                }
+                assertEquals(from + " to " + to, Samples.write(format, tto), sb.toString());
+            }
+        }
+    }
+
+    /**
+     * Parsing what a format wrote gives the same captions and styles. The whole file isn't compared,
+     * the writers add a note of their own to the description.
+     */
+    @Test
+    public void roundTrips() throws Exception {
+        for (String extension : Samples.EXTENSIONS) {
+            TimedTextFileFormat format = Formats.forExtension(extension);
+            TimedTextObject tto = Samples.parse(extension);
+            TimedTextObject again = format.parseFile("sample." + extension, new StringReader(Samples.write(format, tto)));
+            assertEquals(extension, Samples.write(Formats.SRT, tto), Samples.write(Formats.SRT, again));
+            assertEquals(extension, tto.styling.keySet(), again.styling.keySet());
+        }
+    }
+
+    @Test
+    public void skipsTheByteOrderMark() throws Exception {
+        byte[] text = Samples.bytes("sample.srt");
+        byte[] withBom = new byte[text.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(text, 0, withBom, 3, text.length);
+        TimedTextObject tto = Formats.SRT.parseFile("sample.srt", new ByteArrayInputStream(withBom));
+        assertEquals(Samples.text("sample.srt.srt"), Samples.write(Formats.SRT, tto));
+    }
+
+    /**
+     * The shared instances convert every sample from several threads at once.
+     */
+    @Test
+    public void isSharedBetweenThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String from = Samples.EXTENSIONS[i % 4];
+                final String to = Samples.EXTENSIONS[i / 4 % 4];
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return Samples.write(Formats.forExtension(to), Samples.parse(from));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String name = "sample." + Samples.EXTENSIONS[i % 4] + "." + Samples.EXTENSIONS[i / 4 % 4];
+                assertEquals(name, Samples.text(name), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Exceptions thrown by the handler reach the caller, they aren't taken for the end of the input.
+     */
+    @Test
+    public void passesHandlerExceptionsOn() throws Exception {
+        CaptionHandler failing = new CaptionHandler() {
+            @Override
+            public void onMetadata(String name, String value) {
+            }
+
+            @Override
+            public void onStyle(Style style) {
+            }
+
+            @Override
+            public void onCaption(Caption caption) {
+                throw new NullPointerException("from the handler");
+            }
+
+            @Override
+            public void onWarning(Diagnostic.Code code, int line, int captionIndex, String detail) {
+            }
+        };
+        for (String extension : Samples.EXTENSIONS) {
+            try {
+                Formats.forExtension(extension).parse("sample." + extension, new StringReader(Samples.text("sample." + extension)), failing);
+                fail(extension);
+            } catch (NullPointerException e) {
+                assertEquals(extension, "from the handler", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void warnsAboutTruncatedInput() throws Exception {
+        String[][] inputs = {
+                {"srt", "1\n00:00:01,000 --> 00:00:02,000"},
+                {"vtt", "WEBVTT\n\n1\n00:00:01.000 --> 00:00:02.000"},
+                {"ass", "[Script Info]\nTitle: cut"}
+        };
+        for (String[] input : inputs) {
+            Diagnostics diagnostics = new Diagnostics(Diagnostics.Level.ALL);
+            Formats.forExtension(input[0]).parseFile("cut." + input[0], new StringReader(input[1]), diagnostics);
+            assertEquals(input[0], 1, diagnostics.getCount(Diagnostic.Code.UNEXPECTED_END_OF_FILE));
+        }
+    }
+
+    @Test
+    public void findsFormatsByExtension() {
+        for (String extension : Samples.EXTENSIONS) {
+            assertNotNull(extension, Formats.forExtension(extension));
+            assertEquals(Formats.forExtension(extension), Formats.forExtension(extension.toUpperCase()));
+        }
+    }
+
+}
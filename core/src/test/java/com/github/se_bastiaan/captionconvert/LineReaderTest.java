@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LineReaderTest {
+
+    @Test
+    public void walksAnArray() throws Exception {
+        LineReader lines = LineReader.of(new String[]{"first", "", "last"});
+        assertEquals("first", lines.next());
+        assertTrue(lines.hasNext());
+        assertEquals("", lines.next());
+        assertEquals("last", lines.next());
+        assertFalse(lines.hasNext());
+        assertNull(lines.next());
+    }
+
+    @Test
+    public void readsOneLineAtATime() throws Exception {
+        LineReader lines = LineReader.of(new StringReader("first\r\n\nsecond\rlast"));
+        assertTrue(lines.hasNext());
+        //looking ahead doesn't skip a line
+        assertTrue(lines.hasNext());
+        assertEquals("first", lines.next());
+        assertEquals("", lines.next());
+        assertEquals("second", lines.next());
+        assertEquals("last", lines.next());
+        assertFalse(lines.hasNext());
+        assertNull(lines.next());
+    }
+
+    @Test
+    public void skipsTheByteOrderMark() throws Exception {
+        LineReader lines = LineReader.of(new StringReader("\uFEFFfirst\n\uFEFFsecond"));
+        assertEquals("first", lines.next());
+        assertEquals("\uFEFFsecond", lines.next());
+    }
+
+    /**
+     * A stream, a reader, a string and an array of lines give the same captions, compared as SRT.
+     */
+    @Test
+    public void parsesTheSameFromEveryInput() throws Exception {
+        for (String extension : Samples.EXTENSIONS) {
+            TimedTextFileFormat format = Formats.forExtension(extension);
+            String text = Samples.text("sample." + extension);
+            List<String> fromStream = srt(Samples.parse(extension));
+            assertEquals(extension, fromStream, srt(format.parseFile("sample." + extension, new StringReader(text))));
+            assertEquals(extension, fromStream, srt(format.parseFile("sample." + extension, text)));
+            assertEquals(extension, fromStream, srt(format.parseFile("sample." + extension, text.split("\n", -1))));
+        }
+    }
+
+    private static List<String> srt(TimedTextObject tto) {
+        return Arrays.asList(new FormatSRT().toFile(tto));
+    }
+
+}
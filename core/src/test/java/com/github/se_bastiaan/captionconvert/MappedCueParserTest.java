@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Parsing a mapped file gives the same captions and warnings as parsing it line by line.
+ */
+public class MappedCueParserTest {
+
+    private File file;
+
+    @After
+    public void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void matchesTheLineParserOnTheSamples() throws Exception {
+        assertSameResult(Formats.SRT, Samples.bytes("sample.srt"));
+        assertSameResult(Formats.VTT, Samples.bytes("sample.vtt"));
+    }
+
+    @Test
+    public void matchesTheLineParserOnGeneratedFiles() throws Exception {
+        TimedTextObject tto = Samples.generate(3000, 3);
+        assertSameResult(Formats.SRT, Samples.write(Formats.SRT, tto).getBytes(Samples.UTF_8));
+        assertSameResult(Formats.VTT, Samples.write(Formats.VTT, tto).getBytes(Samples.UTF_8));
+    }
+
+    @Test
+    public void matchesTheLineParserOnUnusualInput() throws Exception {
+        String[] files = {
+                //windows line breaks and a byte order mark
+                "\uFEFF1\r\n00:00:01,000 --> 00:00:02,000\r\nWindows\r\n\r\n2\r\n00:00:03,000 --> 00:00:04,000\r\nLines\r\n\r\n",
+                //cue numbers Integer.parseInt accepts
+                "+1\n00:00:01,000 --> 00:00:02,000\nPlus\n\n0002\n00:00:03,000 --> 00:00:04,000\nZeros\n\n0000000003\n00:00:05,000 --> 00:00:06,000\nMore\n\n",
+                //wrong numbers, bad timing and a missing blank line at the end
+                "1\n00:00:01,000 --> 00:00:02,000\nFirst\n\n5\n00:00:03,000 --> 00:00:04,000\nSkipped\n\n2\nnot a time\nText\n\n2\n00:00:05,000 --> 00:00:06,000\nLast",
+                //text that isn't ASCII, surrounded by whitespace
+                "  1  \n00:00:01,000 --> 00:00:02,000\n  Grüße, 字幕  \n\n",
+                ""
+        };
+        for (String text : files) {
+            assertSameResult(Formats.SRT, text.getBytes(Samples.UTF_8));
+        }
+    }
+
+    private void assertSameResult(TimedTextFileFormat format, byte[] bytes) throws Exception {
+        file = File.createTempFile("mapped", ".sub");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        TimedTextObject mapped = format.parseFile(file, new Diagnostics(Diagnostics.Level.ALL));
+        TimedTextObject lines = format.parseFile(file.getPath(), new ByteArrayInputStream(bytes), new Diagnostics(Diagnostics.Level.ALL));
+        assertEquals(write(lines), write(mapped));
+        assertEquals(lines.diagnostics.getEntries().toString(), mapped.diagnostics.getEntries().toString());
+        file.delete();
+    }
+
+    private static String write(TimedTextObject tto) throws IOException {
+        return Samples.write(Formats.SRT, tto) + Samples.write(Formats.TTML, tto);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MarkupTest {
+
+    @Test
+    public void writesLines() throws Exception {
+        assertEquals("Hello world\nsecond\n", lines("Hello <i>world</i><br />second<br /><br />"));
+        assertEquals("a\n\nb\n", lines("a<br /><br />b"));
+        assertEquals("\n", lines(""));
+        assertEquals("1 < 2\n", lines("1 < 2"));
+    }
+
+    @Test
+    public void replacesLineBreaks() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        Markup.appendText(sb, "Hello <b>world</b><br />second<br />", "\\N");
+        assertEquals("Hello world\\Nsecond\\N", sb.toString());
+    }
+
+    @Test
+    public void makesPlainText() {
+        assertEquals("Hello world\nsecond", Markup.plainText("Hello <b>world</b><br />second<br />"));
+        String plain = "nothing to do";
+        assertSame(plain, Markup.plainText(plain));
+    }
+
+    @Test
+    public void stripsBlocks() {
+        assertEquals("Hello world", Markup.strip("Hello {\\b1}world{\\b0}", '{', '}'));
+        assertEquals("kept {", Markup.strip("kept {", '{', '}'));
+        String plain = "nothing to do";
+        assertSame(plain, Markup.strip(plain, '{', '}'));
+    }
+
+    @Test
+    public void escapesXml() throws Exception {
+        assertEquals("a &lt; b &amp; c<br />&quot;d&quot;", xml("a < b & c<br /><i>\"d\"</i>"));
+        StringBuilder sb = new StringBuilder();
+        Markup.appendEscaped(sb, "Tom &amp; Jerry\u0001");
+        assertEquals("Tom &amp;amp; Jerry", sb.toString());
+    }
+
+    /**
+     * References the content already holds are not escaped a second time.
+     */
+    @Test
+    public void keepsCharacterReferences() throws Exception {
+        assertEquals("Tom &amp; Jerry &lt;3", xml("Tom &amp; Jerry &lt;3"));
+        assertEquals("&#38; &#x26; &quot; &apos; &gt;", xml("&#38; &#x26; &quot; &apos; &gt;"));
+        assertEquals("a&#160;b&#8206;c&#8207;", xml("a&nbsp;b&lrm;c&rlm;"));
+        assertEquals("&amp;#0; &amp;#xD800; &amp;#99999999; &amp;bogus; &amp; &amp;; &amp;#; &amp;amp", xml("&#0; &#xD800; &#99999999; &bogus; & &; &#; &amp"));
+    }
+
+    private static String lines(String content) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        Markup.appendLines(sb, content);
+        return sb.toString();
+    }
+
+    private static String xml(String content) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        Markup.appendXml(sb, content);
+        return sb.toString();
+    }
+
+}
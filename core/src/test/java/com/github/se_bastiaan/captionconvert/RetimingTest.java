@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RetimingTest {
+
+    @Test
+    public void shiftsAndScales() {
+        assertSame(Retiming.NONE, Retiming.offset(0));
+        assertSame(Retiming.NONE, Retiming.scale(1));
+        assertEquals(1500, Retiming.offset(500).apply(1000));
+        assertEquals(3000, Retiming.offset(500).then(Retiming.scale(2)).apply(1000));
+        assertEquals(2500, Retiming.scale(2).then(Retiming.offset(500)).apply(1000));
+        assertEquals(23976, Retiming.frameRate(23.976, 25).apply(25000));
+    }
+
+    @Test
+    public void movesAlongTheSyncPoints() {
+        Retiming map = Retiming.syncMap(new int[]{1000, 5000, 9000}, new int[]{2000, 4000, 10000});
+        int[] from = {0, 1000, 3000, 5000, 7000, 9000, 12000};
+        int[] to = {1000, 2000, 3000, 4000, 7000, 10000, 13000};
+        for (int i = 0; i < from.length; i++) {
+            assertEquals("at " + from[i], to[i], map.apply(from[i]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecreasingSyncPoints() {
+        Retiming.syncMap(new int[]{1000, 1000}, new int[]{0, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidScales() {
+        Retiming.scale(0);
+    }
+
+    /**
+     * The offset of the object is applied unless a retiming replaces it, times before zero are written as zero.
+     */
+    @Test
+    public void isAppliedWhenWriting() throws Exception {
+        TimedTextObject tto = Samples.parse("srt");
+        tto.offset = 1500;
+        assertTrue(Samples.write(Formats.SRT, tto).startsWith("1\n00:00:02,500 --> 00:00:04,000\n"));
+        StringBuilder sb = new StringBuilder();
+        Formats.SRT.write(tto, Retiming.offset(-2000), sb);
+        assertTrue(sb.toString(), sb.toString().startsWith("1\n00:00:00,000 --> 00:00:00,500\n"));
+        //the captions themselves don't change
+        assertEquals(1000, tto.captions.iterator().next().start.getMilliseconds());
+    }
+
+}
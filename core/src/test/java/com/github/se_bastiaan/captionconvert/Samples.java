@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * The sample files in the test resources and helpers to parse and write them.
+ */
+final class Samples {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final String[] EXTENSIONS = {"srt", "vtt", "ass", "ttml"};
+
+    private Samples() {
+    }
+
+    /**
+     * @param name name of a file next to this class in the test resources
+     * @return its bytes
+     */
+    static byte[] bytes(String name) throws IOException {
+        InputStream is = Samples.class.getResourceAsStream(name);
+        if (is == null) {
+            throw new IOException("Missing test resource " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    static String text(String name) throws IOException {
+        return new String(bytes(name), UTF_8);
+    }
+
+    /**
+     * @param extension format of the sample
+     * @return the sample file of that format, parsed
+     */
+    static TimedTextObject parse(String extension) throws IOException, ParsingException {
+        InputStream is = Samples.class.getResourceAsStream("sample." + extension);
+        try {
+            return Formats.forExtension(extension).parseFile("sample." + extension, is);
+        } finally {
+            is.close();
+        }
+    }
+
+    static String write(TimedTextFileFormat format, TimedTextObject tto) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        format.write(tto, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Builds a track of overlapping captions with a few styles, the same one for the same seed.
+     *
+     * @param count number of captions
+     * @param seed  seed of the random times and texts
+     * @return a built TimedTextObject
+     */
+    static TimedTextObject generate(int count, long seed) {
+        Random random = new Random(seed);
+        TimedTextObject tto = new TimedTextObject();
+        //the ASS parser can't read back an empty title
+        tto.title = "Generated";
+        Style[] styles = new Style[3];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = new Style("style" + i);
+            styles[i].italic = i == 1;
+            tto.styling.put(styles[i].id, styles[i]);
+        }
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            start += random.nextInt(3000);
+            Caption caption = new Caption();
+            caption.start = new Time(start);
+            caption.end = new Time(start + 1 + random.nextInt(8000));
+            caption.style = random.nextInt(4) == 0 ? null : styles[random.nextInt(styles.length)];
+            caption.content = "Caption " + i + (random.nextBoolean() ? "<br />second line" : "");
+            tto.captions.add(caption);
+        }
+        tto.built = true;
+        return tto;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StyleTest {
+
+    @Test
+    public void readsHexColors() {
+        assertEquals("ff8000ff", Style.getRGBValue("&HBBGGRR", "&H0080ff"));
+        assertEquals("ff800040", Style.getRGBValue("&HAABBGGRR", "&H400080ff"));
+    }
+
+    @Test
+    public void readsDecimalColors() {
+        assertEquals("ff8000ff", Style.getRGBValue("decimalCodedBBGGRR", String.valueOf(0x0080FF)));
+        assertEquals("ff800040", Style.getRGBValue("decimalCodedAABBGGRR", String.valueOf(0x400080FF)));
+    }
+
+    /**
+     * The ASS writer reads back the colors of its own styles and uses white on black for styles without them.
+     */
+    @Test
+    public void writesColorsAsAss() throws Exception {
+        TimedTextObject tto = Samples.parse("ass");
+        FormatASS ass = new FormatASS();
+        TimedTextObject again = ass.parseFile("sample.ass", (String[]) ass.toFile(tto));
+        for (Style style : tto.styling.values()) {
+            assertEquals(style.id, style.color.toLowerCase(), again.styling.get(style.id).color);
+        }
+
+        //the TTML sample has no background colors, the writer gives every background an alpha of 80
+        again = ass.parseFile("sample.ass", (String[]) ass.toFile(Samples.parse("ttml")));
+        for (Style style : again.styling.values()) {
+            assertEquals(style.id, "00000080", style.backgroundColor);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeFormatTest {
+
+    @Test
+    public void parsesEveryFormat() {
+        assertEquals(3742501, TimeFormat.SRT_MS.parse("01:02:22,501"));
+        assertEquals(3742501, TimeFormat.VTT_MS.parse("01:02:22.501"));
+        assertEquals(3742510, TimeFormat.ASS_CS.parse("1:02:22.51"));
+        assertEquals(3742480, TimeFormat.frames(25).parse("01:02:22:12"));
+        //hours may be left out and both separators are accepted
+        assertEquals(142501, TimeFormat.VTT_MS.parse("02:22.501"));
+        assertEquals(142500, TimeFormat.SRT_MS.parse("00:02:22.5"));
+    }
+
+    @Test
+    public void parsesARange() {
+        String line = "00:00:01,000 --> 00:00:02,500";
+        assertEquals(1000, TimeFormat.SRT_MS.parse(line, 0, 12));
+        assertEquals(2500, TimeFormat.SRT_MS.parse(line, 17, line.length()));
+    }
+
+    @Test
+    public void formatsEveryFormat() {
+        assertEquals("01:02:22,501", TimeFormat.SRT_MS.format(3742501));
+        assertEquals("01:02:22.501", TimeFormat.VTT_MS.format(3742501));
+        assertEquals("1:02:22.50", TimeFormat.ASS_CS.format(3742501));
+        assertEquals("01:02:22:12", TimeFormat.frames(25).format(3742480));
+        assertEquals("00:00:00,000", TimeFormat.SRT_MS.format(-1));
+        assertEquals("100:00:00,000", TimeFormat.SRT_MS.format(360000000));
+    }
+
+    @Test
+    public void readsWhatItWrites() {
+        Random random = new Random(4);
+        for (int i = 0; i < 1000; i++) {
+            int time = random.nextInt(360000000);
+            assertEquals(time, TimeFormat.SRT_MS.parse(TimeFormat.SRT_MS.format(time)));
+            assertEquals(time, TimeFormat.VTT_MS.parse(TimeFormat.VTT_MS.format(time)));
+            assertEquals(time / 10 * 10, TimeFormat.ASS_CS.parse(TimeFormat.ASS_CS.format(time)));
+        }
+    }
+
+    /**
+     * Writing into a buffer gives the same characters as the StringBuilder version.
+     */
+    @Test
+    public void formatsIntoABuffer() {
+        TimeFormat[] formats = {TimeFormat.SRT_MS, TimeFormat.VTT_MS, TimeFormat.ASS_CS, TimeFormat.frames(25)};
+        int[] times = {-1, 0, 3742501, 360000000, Integer.MAX_VALUE};
+        char[] buffer = new char[3 + TimeFormat.MAX_LENGTH];
+        for (TimeFormat format : formats) {
+            for (int time : times) {
+                int end = format.format(time, buffer, 3);
+                assertEquals(format.format(time), new String(buffer, 3, end - 3));
+                assertEquals(end, new Time(time).getTime(format, buffer, 3));
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheStringFormats() {
+        assertEquals(3742501, new Time("hh:mm:ss,ms", "01:02:22,501").getMilliseconds());
+        assertEquals(3742510, new Time("h:mm:ss.cs", "1:02:22.51").getMilliseconds());
+        assertEquals(3742480, new Time("h:m:s:f/fps", "1:2:22:12/25").getMilliseconds());
+        assertEquals("01:02:22,501", new Time(3742501).getTime("hh:mm:ss,ms"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void rejectsMissingFields() {
+        TimeFormat.SRT_MS.parse("01");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void rejectsAnEmptyFraction() {
+        TimeFormat.SRT_MS.parse("00:00:01,");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void rejectsTrailingCharacters() {
+        TimeFormat.VTT_MS.parse("00:00:01.000 align:start");
+    }
+
+}
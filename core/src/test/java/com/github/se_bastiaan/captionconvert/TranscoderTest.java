@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TranscoderTest {
+
+    private static final TimedTextFileFormat[][] STREAMING = {
+            {Formats.SRT, Formats.VTT},
+            {Formats.VTT, Formats.SRT},
+            {Formats.ASS, Formats.SRT},
+            {Formats.ASS, Formats.VTT}
+    };
+
+    @Test
+    public void streamsTheCommonPairs() {
+        for (TimedTextFileFormat[] pair : STREAMING) {
+            assertNotSame(Transcoder.generic(pair[0], pair[1]), Transcoder.forFormats(pair[0], pair[1]));
+        }
+        assertSame(Transcoder.generic(Formats.SRT, Formats.TTML).getClass(), Transcoder.forFormats(Formats.SRT, Formats.TTML).getClass());
+    }
+
+    /**
+     * The streaming transcoders give the same output and warnings as parsing and then writing.
+     */
+    @Test
+    public void streamingMatchesGeneric() throws Exception {
+        for (TimedTextFileFormat[] pair : STREAMING) {
+            String extension = pair[0] == Formats.SRT ? "srt" : pair[0] == Formats.VTT ? "vtt" : "ass";
+            assertSameOutput(pair[0], pair[1], Samples.text("sample." + extension), Retiming.NONE);
+            assertSameOutput(pair[0], pair[1], Samples.text("sample." + extension), Retiming.offset(-1500).then(Retiming.scale(1.25)));
+        }
+    }
+
+    @Test
+    public void streamingMatchesGenericOnGeneratedFiles() throws Exception {
+        TimedTextObject tto = Samples.generate(2000, 42);
+        for (TimedTextFileFormat from : new TimedTextFileFormat[]{Formats.SRT, Formats.VTT, Formats.ASS}) {
+            String file = Samples.write(from, tto);
+            for (TimedTextFileFormat[] pair : STREAMING) {
+                if (pair[0] == from) {
+                    assertSameOutput(pair[0], pair[1], file, Retiming.NONE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Captions that are only a little out of order are sorted like the generic path sorts them.
+     */
+    @Test
+    public void sortsCaptionsWithinTheWindow() throws Exception {
+        List<Caption> captions = new ArrayList<>(Samples.generate(500, 7).captions);
+        for (int i = 0; i + 1 < captions.size(); i += 5) {
+            Collections.swap(captions, i, i + 1);
+        }
+        String srt = srt(captions);
+        assertSameOutput(Formats.SRT, Formats.VTT, srt, Retiming.NONE);
+        Diagnostics diagnostics = new Diagnostics(Diagnostics.Level.ALL);
+        transcode(Transcoder.forFormats(Formats.SRT, Formats.VTT), srt, Retiming.NONE, diagnostics);
+        assertEquals(0, diagnostics.getCount(Diagnostic.Code.CAPTION_OUT_OF_ORDER));
+    }
+
+    @Test
+    public void reportsCaptionsOutsideTheWindow() throws Exception {
+        List<Caption> captions = new ArrayList<>(Samples.generate(100, 7).captions);
+        captions.add(captions.remove(0));
+        Diagnostics diagnostics = new Diagnostics(Diagnostics.Level.ALL);
+        String vtt = transcode(Transcoder.forFormats(Formats.SRT, Formats.VTT), srt(captions), Retiming.NONE, diagnostics);
+        assertEquals(1, diagnostics.getCount(Diagnostic.Code.CAPTION_OUT_OF_ORDER));
+        //written after the captions that came before it in the file
+        assertTrue(vtt.indexOf("\nCaption 0\n") > vtt.indexOf("\nCaption 1\n"));
+    }
+
+    @Test
+    public void registersTranscoders() throws Exception {
+        Transcoder custom = new Transcoder() {
+            @Override
+            public void transcode(String fileName, java.io.Reader reader, Appendable out, Retiming retiming, Diagnostics diagnostics) throws IOException {
+                out.append("custom");
+            }
+        };
+        Transcoder.register(FormatTTML.class, FormatASS.class, custom);
+        try {
+            assertSame(custom, Transcoder.forFormats(Formats.TTML, Formats.ASS));
+        } finally {
+            Transcoder.register(FormatTTML.class, FormatASS.class, Transcoder.generic(Formats.TTML, Formats.ASS));
+        }
+    }
+
+    private static void assertSameOutput(TimedTextFileFormat from, TimedTextFileFormat to, String file, Retiming retiming) throws Exception {
+        Diagnostics streamingDiagnostics = new Diagnostics(Diagnostics.Level.ALL);
+        Diagnostics genericDiagnostics = new Diagnostics(Diagnostics.Level.ALL);
+        String streaming = transcode(Transcoder.forFormats(from, to), file, retiming, streamingDiagnostics);
+        String generic = transcode(Transcoder.generic(from, to), file, retiming, genericDiagnostics);
+        String pair = from.getClass().getSimpleName() + " to " + to.getClass().getSimpleName();
+        assertEquals(pair, generic, streaming);
+        assertEquals(pair, genericDiagnostics.getEntries().toString(), streamingDiagnostics.getEntries().toString());
+    }
+
+    private static String transcode(Transcoder transcoder, String file, Retiming retiming, Diagnostics diagnostics) throws Exception {
+        StringBuilder out = new StringBuilder();
+        transcoder.transcode("file", new StringReader(file), out, retiming, diagnostics);
+        return out.toString();
+    }
+
+    /**
+     * @return the captions as an SRT file, numbered in the given order
+     */
+    private static String srt(List<Caption> captions) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[64];
+        int number = 1;
+        for (Caption caption : captions) {
+            TimedTextFileFormat.writeNumberedCue(sb, buffer, number++, caption, TimeFormat.SRT_MS, Retiming.NONE);
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015-2016 Sébastiaan (github.com/se-bastiaan)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.se_bastiaan.captionconvert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VttSegmenterTest {
+
+    private static final String HEADER = "WEBVTT\nX-TIMESTAMP-MAP=MPEGTS:900000,LOCAL:00:00:00.000\n\n";
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final VttSegmenter.Listener listener = new VttSegmenter.Listener() {
+        @Override
+        public void onSegment(int index, long start, long end, String vtt) {
+            segments.add(new Segment(index, start, end, vtt));
+        }
+    };
+
+    @Test
+    public void writesCaptionsToEverySegmentTheyShowIn() {
+        VttSegmenter segmenter = new VttSegmenter(6000, 900000, listener);
+        segmenter.segment(captions(3600 * 1000));
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            assertEquals(i, segment.index);
+            assertEquals(i * 6000L, segment.start);
+            assertEquals(segment.start + 6000, segment.end);
+            assertTrue(segment.vtt.startsWith(HEADER));
+        }
+        //cue 2 runs from 4.5 to 7.6 seconds, it is in both segments with its own times
+        assertEquals(HEADER
+                + "1\n00:00:04.500 --> 00:00:07.600\ncue 2\n\n"
+                + "2\n00:00:06.500 --> 00:00:09.600\ncue 3\n\n"
+                + "3\n00:00:08.500 --> 00:00:11.600\ncue 4\n\n"
+                + "4\n00:00:10.500 --> 00:00:13.600\ncue 5\n\n", segments.get(1).vtt);
+        assertTrue(segments.get(0).vtt.contains("00:00:04.500 --> 00:00:07.600\ncue 2\n"));
+    }
+
+    @Test
+    public void splitsCuesWhenAsked() {
+        VttSegmenter segmenter = new VttSegmenter(6000, 900000, listener);
+        segmenter.splitCues = true;
+        segmenter.segment(captions(60 * 1000));
+        assertTrue(segments.get(0).vtt.contains("00:00:04.500 --> 00:00:06.000\ncue 2\n"));
+        assertTrue(segments.get(1).vtt.contains("00:00:06.000 --> 00:00:07.600\ncue 2\n"));
+    }
+
+    @Test
+    public void handsOutSegmentsAsTheClockMoves() {
+        VttSegmenter segmenter = new VttSegmenter(1000, 0, listener);
+        segmenter.onCaption(caption(100, 200, "a"));
+        segmenter.advanceTo(3500);
+        assertEquals(3, segments.size());
+        assertTrue(segments.get(0).vtt.contains("\na\n"));
+        assertFalse(segments.get(1).vtt.contains("-->"));
+
+        segmenter.onCaption(caption(500, 900, "late"));
+        assertEquals(1, segmenter.getLateCount());
+        segmenter.onCaption(caption(2500, 4200, "partly late"));
+        segmenter.finish();
+        assertEquals(5, segments.size());
+        assertTrue(segments.get(3).vtt.contains("partly late"));
+        assertTrue(segments.get(4).vtt.contains("partly late"));
+    }
+
+    /**
+     * Segments past the 24.8 days an int holds in milliseconds get the right bounds.
+     */
+    @Test
+    public void segmentsTheLastMilliseconds() {
+        VttSegmenter segmenter = new VttSegmenter(10000, 0, listener);
+        segmenter.splitCues = true;
+        segmenter.onCaption(caption(Integer.MAX_VALUE - 15000, Integer.MAX_VALUE, "last"));
+        segmenter.finish();
+        Segment last = segments.get(segments.size() - 1);
+        assertEquals(Integer.MAX_VALUE / 10000, last.index);
+        assertEquals(last.index * 10000L, last.start);
+        assertEquals(last.start + 10000, last.end);
+        assertTrue(last.end > Integer.MAX_VALUE);
+        assertTrue(last.vtt.contains("596:31:20.000 --> 596:31:23.647\nlast\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyDuration() {
+        new VttSegmenter(0, 0, listener);
+    }
+
+    /**
+     * @return a caption of 3.1 seconds every 2 seconds, from 0.5 seconds on
+     */
+    private static TimedTextObject captions(int length) {
+        TimedTextObject tto = new TimedTextObject();
+        int number = 0;
+        for (int time = 500; time < length; time += 2000) {
+            tto.captions.add(caption(time, time + 3100, "cue " + number++));
+        }
+        tto.built = true;
+        return tto;
+    }
+
+    private static Caption caption(int start, int end, String content) {
+        Caption caption = new Caption();
+        caption.start = new Time(start);
+        caption.end = new Time(end);
+        caption.content = content;
+        return caption;
+    }
+
+    private static final class Segment {
+
+        final int index;
+        final long start;
+        final long end;
+        final String vtt;
+
+        Segment(int index, long start, long end, String vtt) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.vtt = vtt;
+        }
+
+    }
+
+}